@@ -0,0 +1,39 @@
+package com.example.demo.vectorstore;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 JDK Vector API 的SIMD点积内核
+ *
+ * 使用平台首选向量宽度（AVX2为8路、AVX-512为16路float），按向量宽度做乘加累加，
+ * 循环结束后一次横向归约，余下不足一个向量宽度的维度用标量补齐。
+ * 仅在 vector-api 构建配置下编译，由 {@link SimilarityKernels} 反射加载。
+ */
+public final class VectorApiKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector-api-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.config;
+
+import com.example.demo.knowledge.ChunkMeasure;
+import com.example.demo.knowledge.MarkdownChunker;
+import com.example.demo.knowledge.TokenEstimator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 知识库导入相关的组件配置
+ */
+@Configuration
+@EnableConfigurationProperties(KnowledgeProperties.class)
+public class KnowledgeConfig {
+
+    @Bean
+    public MarkdownChunker markdownChunker(KnowledgeProperties properties) {
+        KnowledgeProperties.Chunking chunking = properties.getChunking();
+        ChunkMeasure measure = chunking.isTokens() ? TokenEstimator.INSTANCE : ChunkMeasure.CHARACTERS;
+        return new MarkdownChunker(chunking.getMaxHeadingLevel(), measure, chunking.maxSizeOrDefault(),
+                chunking.targetSizeOrDefault(), chunking.minSizeOrDefault(), chunking.overlapOrDefault());
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 知识库配置
+ *
+ * 对应 application.yaml 中的 knowledge 配置段
+ */
+@ConfigurationProperties(prefix = "knowledge")
+public class KnowledgeProperties {
+
+    /**
+     * 热加载知识目录，目录下的 .txt / .md 文件新增、修改或删除后自动同步到向量存储，留空则不监听
+     */
+    private String directory;
+
+    /**
+     * 文件变化后的防抖时间（毫秒），窗口内的多次变化只触发一次重新导入
+     */
+    private long debounceMillis = 1000;
+
+    /**
+     * 导入流水线配置
+     */
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * 分割配置
+     */
+    private Chunking chunking = new Chunking();
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    public Chunking getChunking() {
+        return chunking;
+    }
+
+    public void setChunking(Chunking chunking) {
+        this.chunking = chunking;
+    }
+
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * 片段大小：按字符数（默认）或估算的token数确定
+     *
+     * 各长度未配置时按单位取默认值：chars 沿用最初的 1000 / 800 / 50，片段之间不重叠；
+     * tokens 为 480 / 320 / 24，相邻片段重叠48，适配512 token的嵌入模型输入窗口。
+     */
+    public static class Chunking {
+
+        // 长度单位：chars（字符数）或 tokens（本地估算的token数）
+        private String unit = "chars";
+
+        // 开始新章节的最深标题级别
+        private int maxHeadingLevel = 3;
+
+        // 章节不超过该长度时整体作为一个片段，也是单个片段的上限（应小于嵌入模型的输入窗口），为空时按单位取默认值
+        private Integer maxSize;
+
+        // 长章节拆分时每个片段的目标长度，为空时按单位取默认值
+        private Integer targetSize;
+
+        // 片段的最小长度，更短的章节被丢弃，为空时按单位取默认值
+        private Integer minSize;
+
+        // 相邻片段之间重复内容的最大长度，为空时按单位取默认值
+        private Integer overlap;
+
+        public boolean isTokens() {
+            return "tokens".equalsIgnoreCase(unit);
+        }
+
+        public int maxSizeOrDefault() {
+            return maxSize != null ? maxSize : isTokens() ? 480 : 1000;
+        }
+
+        public int targetSizeOrDefault() {
+            return targetSize != null ? targetSize : isTokens() ? 320 : 800;
+        }
+
+        public int minSizeOrDefault() {
+            return minSize != null ? minSize : isTokens() ? 24 : 50;
+        }
+
+        public int overlapOrDefault() {
+            return overlap != null ? overlap : isTokens() ? 48 : 0;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public void setUnit(String unit) {
+            this.unit = unit;
+        }
+
+        public int getMaxHeadingLevel() {
+            return maxHeadingLevel;
+        }
+
+        public void setMaxHeadingLevel(int maxHeadingLevel) {
+            this.maxHeadingLevel = maxHeadingLevel;
+        }
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Integer getTargetSize() {
+            return targetSize;
+        }
+
+        public void setTargetSize(Integer targetSize) {
+            this.targetSize = targetSize;
+        }
+
+        public Integer getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(Integer minSize) {
+            this.minSize = minSize;
+        }
+
+        public Integer getOverlap() {
+            return overlap;
+        }
+
+        public void setOverlap(Integer overlap) {
+            this.overlap = overlap;
+        }
+    }
+
+    /**
+     * 导入流水线：读取 → 分割 → 嵌入 → 写入，相邻阶段由有界队列连接
+     */
+    public static class Pipeline {
+
+        // 相邻阶段之间队列的容量（文件或批次数）
+        private int queueCapacity = 4;
+
+        // 读取阶段线程数
+        private int readParallelism = 2;
+
+        // 分割与比对阶段线程数
+        private int splitParallelism = 2;
+
+        // 嵌入阶段线程数（同时嵌入的批次数，每个批次内部再按 embedding-batch 分批并发）
+        private int embedParallelism = 2;
+
+        // 分割阶段每积累多少个需要写入的片段就交给嵌入阶段
+        private int batchChunks = 64;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getReadParallelism() {
+            return readParallelism;
+        }
+
+        public void setReadParallelism(int readParallelism) {
+            this.readParallelism = readParallelism;
+        }
+
+        public int getSplitParallelism() {
+            return splitParallelism;
+        }
+
+        public void setSplitParallelism(int splitParallelism) {
+            this.splitParallelism = splitParallelism;
+        }
+
+        public int getEmbedParallelism() {
+            return embedParallelism;
+        }
+
+        public void setEmbedParallelism(int embedParallelism) {
+            this.embedParallelism = embedParallelism;
+        }
+
+        public int getBatchChunks() {
+            return batchChunks;
+        }
+
+        public void setBatchChunks(int batchChunks) {
+            this.batchChunks = batchChunks;
+        }
+    }
+}
@@ -1,5 +1,24 @@
 package com.example.demo.config;
 
+import com.example.demo.vectorstore.BinaryIndex;
+import com.example.demo.vectorstore.DocumentEmbedder;
+import com.example.demo.vectorstore.DocumentIds;
+import com.example.demo.vectorstore.EmbeddedDocumentStore;
+import com.example.demo.vectorstore.EmbeddingCache;
+import com.example.demo.vectorstore.FlatIndex;
+import com.example.demo.vectorstore.FloatMatrix;
+import com.example.demo.vectorstore.HnswVectorStore;
+import com.example.demo.vectorstore.IvfIndex;
+import com.example.demo.vectorstore.MetadataFilter;
+import com.example.demo.vectorstore.ProductQuantizedIndex;
+import com.example.demo.vectorstore.RecallTracker;
+import com.example.demo.vectorstore.ScalarQuantizedIndex;
+import com.example.demo.vectorstore.Segment;
+import com.example.demo.vectorstore.SimilarityKernels;
+import com.example.demo.vectorstore.TopKCollector;
+import com.example.demo.vectorstore.VectorIndex;
+import com.example.demo.vectorstore.VectorStorePersistence;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.embedding.EmbeddingModel;
@@ -7,73 +26,315 @@ import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 @Configuration
+@EnableConfigurationProperties(VectorStoreProperties.class)
 public class VectorStoreConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(VectorStoreConfig.class);
 
+    // 配置了并行度时创建的专用扫描线程池，容器关闭时关闭；使用公共池时为null
+    private ForkJoinPool dedicatedScanPool;
+
+    @Bean(destroyMethod = "shutdown")
+    public DocumentEmbedder documentEmbedder(EmbeddingModel embeddingModel, VectorStoreProperties properties) {
+        VectorStoreProperties.EmbeddingCache cacheProperties = properties.getEmbeddingCache();
+        EmbeddingCache cache = null;
+        if (cacheProperties.getFile() != null && !cacheProperties.getFile().isBlank()) {
+            cache = new EmbeddingCache(cacheProperties.getModelName(), Path.of(cacheProperties.getFile()),
+                    cacheProperties.getMaxEntries());
+        }
+        VectorStoreProperties.EmbeddingBatch batch = properties.getEmbeddingBatch();
+        return new DocumentEmbedder(embeddingModel, cache, batch.getSize(), batch.getConcurrency(),
+                batch.getMaxAttempts(), batch.getRetryBackoffMillis());
+    }
+
     @Bean
-    public VectorStore vectorStore(EmbeddingModel embeddingModel) {
-        logger.info("配置简单内存向量存储");
-        return new SimpleInMemoryVectorStore(embeddingModel);
+    public VectorStore vectorStore(DocumentEmbedder embedder, VectorStoreProperties properties) {
+        if ("hnsw".equalsIgnoreCase(properties.getType())) {
+            VectorStoreProperties.Hnsw hnsw = properties.getHnsw();
+            logger.info("配置HNSW向量存储: m={}, efConstruction={}, efSearch={}, rebuildDeletedRatio={}",
+                    hnsw.getM(), hnsw.getEfConstruction(), hnsw.getEfSearch(), hnsw.getRebuildDeletedRatio());
+            return new HnswVectorStore(embedder, hnsw.getM(), hnsw.getEfConstruction(), hnsw.getEfSearch(),
+                    hnsw.getRebuildDeletedRatio());
+        }
+        logger.info("配置简单内存向量存储，索引类型: {}", properties.getIndex());
+        String directory = properties.getPersistence().getDirectory();
+        VectorStorePersistence persistence = null;
+        if (directory != null && !directory.isBlank()) {
+            logger.info("启用向量存储持久化，目录: {}", directory);
+            persistence = new VectorStorePersistence(Path.of(directory),
+                    properties.getPersistence().getFlushDelayMillis());
+        }
+        VectorStoreProperties.ParallelScan parallelScan = properties.getParallelScan();
+        if (parallelScan.getParallelism() > 0) {
+            dedicatedScanPool = new ForkJoinPool(parallelScan.getParallelism());
+        }
+        ForkJoinPool scanPool = dedicatedScanPool != null ? dedicatedScanPool : ForkJoinPool.commonPool();
+        return new SimpleInMemoryVectorStore(embedder, () -> createIndex(properties, scanPool),
+                new RecallTracker(properties.getRecallSampleRate()), persistence, properties.getSegments());
+    }
+
+    /**
+     * 关闭专用扫描线程池；向量存储依赖本配置类，会先于它销毁
+     */
+    @PreDestroy
+    public void shutdownScanPool() {
+        if (dedicatedScanPool != null) {
+            dedicatedScanPool.shutdown();
+        }
+    }
+
+    private VectorIndex createIndex(VectorStoreProperties properties, ForkJoinPool scanPool) {
+        if ("ivf".equalsIgnoreCase(properties.getIndex())) {
+            VectorStoreProperties.Ivf ivf = properties.getIvf();
+            return new IvfIndex(ivf.getNlist(), ivf.getNprobe(), ivf.getIterations());
+        }
+        if ("int8".equalsIgnoreCase(properties.getIndex())) {
+            return new ScalarQuantizedIndex(properties.getQuantization().getRescoreFactor());
+        }
+        if ("pq".equalsIgnoreCase(properties.getIndex())) {
+            VectorStoreProperties.Quantization quantization = properties.getQuantization();
+            return new ProductQuantizedIndex(quantization.getPqSubspaces(), quantization.getPqIterations(),
+                    quantization.getRescoreFactor());
+        }
+        if ("binary".equalsIgnoreCase(properties.getIndex())) {
+            return new BinaryIndex(properties.getQuantization().getBinaryCandidates());
+        }
+        return new FlatIndex(properties.getParallelScan().getPartitionRows(), scanPool);
     }
     
     // 简化的内存向量存储
-    public static class SimpleInMemoryVectorStore implements VectorStore {
+    // 数据按不可变段（Segment）组织：查询读取 volatile 段列表快照，全程无锁；
+    // 写操作在 writeLock 下生成新段或替换段，再整体发布新的段列表（copy-on-write）。
+    // 文档主键到（段，行）的哈希索引只由写线程访问，删除和覆盖写入只打墓碑，由后台任务压缩。
+    // 持久化在后台线程上对发布后的段列表快照进行（段不可变，无需加锁），连续的写操作合并为一次保存
+    public static class SimpleInMemoryVectorStore implements VectorStore, EmbeddedDocumentStore {
         
-        private final EmbeddingModel embeddingModel;
-        private final List<DocumentWithEmbedding> storage = new ArrayList<>();
+        private final DocumentEmbedder embedder;
+        private final Supplier<VectorIndex> indexFactory;
+        private final FlatIndex exactIndex = new FlatIndex();
+        private final RecallTracker recallTracker;
+        private final VectorStorePersistence persistence;
+        private final int maxSegments;
+        private final double mergeRatio;
+        private final double compactDeletedRatio;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        // 文档主键 -> 所在位置，仅在 writeLock 下读写
+        private final Map<String, Location> idIndex = new HashMap<>();
+        private final ScheduledExecutorService compactor;
+        private final ScheduledExecutorService persister;
+        // 已安排但尚未开始的保存任务，避免每次写入都重写全部文件
+        private final AtomicBoolean persistPending = new AtomicBoolean();
+        private volatile List<Segment> segments = List.of();
+
+        /**
+         * 文档所在的段（按段标识，删除产生的新版本标识不变）及段内行号
+         */
+        private record Location(long segmentId, int row) {
+        }
         
         public SimpleInMemoryVectorStore(EmbeddingModel embeddingModel) {
-            this.embeddingModel = embeddingModel;
+            this(new DocumentEmbedder(embeddingModel, null), FlatIndex::new, new RecallTracker(0.0), null,
+                    new VectorStoreProperties.Segments());
+        }
+
+        public SimpleInMemoryVectorStore(DocumentEmbedder embedder, Supplier<VectorIndex> indexFactory,
+                                         RecallTracker recallTracker, VectorStorePersistence persistence,
+                                         VectorStoreProperties.Segments options) {
+            this.embedder = embedder;
+            this.indexFactory = indexFactory;
+            this.recallTracker = recallTracker;
+            this.persistence = persistence;
+            this.maxSegments = Math.max(1, options.getMaxSegments());
+            this.mergeRatio = options.getMergeRatio();
+            this.compactDeletedRatio = options.getCompactDeletedRatio();
+
+            // 启动时直接映射持久化文件恢复向量，无需重新调用嵌入模型
+            if (persistence != null) {
+                VectorStorePersistence.Snapshot snapshot = persistence.load();
+                if (snapshot != null && snapshot.matrix() != null) {
+                    this.segments = List.of(new Segment(snapshot.documents(), snapshot.matrix(), indexFactory.get()));
+                    rebuildIdIndex(segments);
+                    logger.info("从持久化文件恢复 {} 个文档", snapshot.documents().size());
+                }
+            }
+
+            if (options.getCompactIntervalSeconds() > 0) {
+                compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "vector-store-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                compactor.scheduleWithFixedDelay(this::compact, options.getCompactIntervalSeconds(),
+                        options.getCompactIntervalSeconds(), TimeUnit.SECONDS);
+            } else {
+                compactor = null;
+            }
+
+            persister = persistence == null ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "vector-store-persister");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
         
+        /**
+         * 写入文档；主键（元数据 id，没有时为文档ID）已存在时覆盖旧文档
+         */
         @Override
         public void add(List<Document> documents) {
+            List<Document> accepted = new ArrayList<>(documents.size());
+            List<String> contents = new ArrayList<>(documents.size());
             for (Document doc : documents) {
+                String content = doc.getText();
+                if (content != null && !content.trim().isEmpty()) {
+                    accepted.add(doc);
+                    contents.add(content);
+                }
+            }
+
+            // 按批次并发调用嵌入模型，而不是逐个文档串行请求
+            addEmbedded(accepted, embedder.embedDocuments(contents));
+        }
+
+        /**
+         * 写入已计算好嵌入向量的文档，不再调用嵌入模型
+         */
+        @Override
+        public List<String> addEmbedded(List<Document> accepted, List<float[]> embeddings) {
+            // 新段（含索引构建）在锁外生成，不阻塞其他写入和查询
+            FloatMatrix matrix = null;
+            List<Document> added = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
                 try {
-                    String content = doc.getText();
-                    if (content != null && !content.trim().isEmpty()) {
-                        float[] embedding = embeddingModel.embed(content);
-                        storage.add(new DocumentWithEmbedding(doc, embedding));
-                        logger.debug("添加文档到向量存储: {}", content.substring(0, Math.min(50, content.length())));
+                    float[] embedding = embeddings.get(i);
+                    if (embedding == null) {
+                        logger.warn("添加文档失败: 嵌入向量生成失败");
+                        continue;
                     }
+                    if (matrix == null) {
+                        matrix = new FloatMatrix(embedding.length, accepted.size());
+                    }
+                    matrix.add(embedding);
+                    added.add(accepted.get(i));
+                    String content = accepted.get(i).getText();
+                    logger.debug("添加文档到向量存储: {}", content.substring(0, Math.min(50, content.length())));
                 } catch (Exception e) {
                     logger.warn("添加文档失败: {}", e.getMessage());
                 }
             }
-            logger.info("向量存储中共有 {} 个文档", storage.size());
+            if (matrix == null) return List.of();
+            Segment segment = new Segment(added, matrix, indexFactory.get());
+
+            int replaced;
+            writeLock.lock();
+            try {
+                List<Segment> current = segments;
+                if (!current.isEmpty() && current.get(0).matrix().dimension() != matrix.dimension()) {
+                    throw new IllegalArgumentException("向量维度不匹配: 期望 " + current.get(0).matrix().dimension()
+                            + "，实际 " + matrix.dimension());
+                }
+
+                // 覆盖写入：同一主键的旧行（包括本批次中更早的重复行）打上墓碑
+                Map<Long, BitSet> tombstones = new HashMap<>();
+                for (int row = 0; row < segment.size(); row++) {
+                    Location previous = idIndex.put(DocumentIds.of(segment.document(row)),
+                            new Location(segment.id(), row));
+                    if (previous != null) {
+                        tombstones.computeIfAbsent(previous.segmentId(), id -> new BitSet()).set(previous.row());
+                    }
+                }
+                replaced = tombstones.values().stream().mapToInt(BitSet::cardinality).sum();
+
+                List<Segment> next = new ArrayList<>(current.size() + 1);
+                next.addAll(current);
+                next.add(segment);
+                segments = List.copyOf(maybeMerge(applyTombstones(next, tombstones)));
+            } finally {
+                writeLock.unlock();
+            }
+            schedulePersist();
+            logger.info("向量存储中共有 {} 个文档（本次覆盖 {} 个），{} 个段，向量占用堆内存 {} KB",
+                    size(), replaced, segments.size(), memoryBytes() / 1024);
+            return added.stream().map(DocumentIds::of).toList();
         }
 
         @Override
         public void delete(List<String> idList) {
+            writeLock.lock();
             try {
-                storage.removeIf(item -> {
-                    String docId = item.document.getMetadata().get("id") != null ?
-                            item.document.getMetadata().get("id").toString() :
-                            item.document.toString();
-                    return idList.contains(docId);
-                });
+                // 按主键哈希定位，每个ID一次查找
+                Map<Long, BitSet> tombstones = new HashMap<>();
+                for (String id : idList) {
+                    Location location = idIndex.remove(id);
+                    if (location != null) {
+                        tombstones.computeIfAbsent(location.segmentId(), segmentId -> new BitSet()).set(location.row());
+                    }
+                }
+                if (tombstones.isEmpty()) return;
+
+                segments = List.copyOf(applyTombstones(segments, tombstones));
             } catch (Exception e) {
                 logger.error("删除文档失败", e);
                 // 你可以考虑抛出 RuntimeException 或记录错误，根据需求处理异常
                 throw new RuntimeException("删除文档失败", e);
+            } finally {
+                writeLock.unlock();
             }
+            schedulePersist();
         }
 
 
         @Override
         public void delete(Filter.Expression filterExpression) {
-            logger.warn("暂不支持基于过滤器的删除操作");
+            MetadataFilter filter = MetadataFilter.compile(filterExpression);
+            writeLock.lock();
+            try {
+                Map<Long, BitSet> tombstones = new HashMap<>();
+                int removedCount = 0;
+                for (Segment segment : segments) {
+                    BitSet removed = filter.select(segment);
+                    if (segment.deletedRows() != null) {
+                        removed.andNot(segment.deletedRows());
+                    }
+                    if (removed.isEmpty()) continue;
+                    for (int row = removed.nextSetBit(0); row >= 0; row = removed.nextSetBit(row + 1)) {
+                        idIndex.remove(DocumentIds.of(segment.document(row)));
+                    }
+                    removedCount += removed.cardinality();
+                    tombstones.put(segment.id(), removed);
+                }
+                if (removedCount == 0) return;
+
+                segments = List.copyOf(applyTombstones(segments, tombstones));
+                logger.info("按过滤条件删除 {} 个文档: {}", removedCount, filterExpression);
+            } catch (Exception e) {
+                logger.error("删除文档失败", e);
+                throw new RuntimeException("删除文档失败", e);
+            } finally {
+                writeLock.unlock();
+            }
+            schedulePersist();
         }
 
         @Override
@@ -82,20 +343,16 @@ public class VectorStoreConfig {
                 String query = request.getQuery();
                 int topK = request.getTopK();
                 
-                if (storage.isEmpty()) {
+                List<Segment> snapshot = segments;
+                if (snapshot.isEmpty()) {
                     logger.warn("向量存储为空，无法进行相似度搜索");
                     return new ArrayList<>();
                 }
                 
-                float[] queryEmbedding = embeddingModel.embed(query);
-                
-                return storage.stream()
-                        .map(item -> new ScoredDocument(item.document, 
-                            cosineSimilarity(queryEmbedding, item.embedding)))
-                        .sorted((a, b) -> Double.compare(b.score, a.score))
-                        .limit(topK > 0 ? topK : 5)
-                        .map(scored -> scored.document)
-                        .collect(Collectors.toList());
+                MetadataFilter filter = request.hasFilterExpression() ?
+                        MetadataFilter.compile(request.getFilterExpression()) : null;
+                return search(snapshot, embedder.embedQuery(query), topK > 0 ? topK : 5,
+                        threshold(request.getSimilarityThreshold()), filter);
                         
             } catch (Exception e) {
                 logger.error("相似度搜索失败", e);
@@ -106,63 +363,362 @@ public class VectorStoreConfig {
         @Override
         public List<Document> similaritySearch(String query) {
             try {
-                if (storage.isEmpty()) {
+                List<Segment> snapshot = segments;
+                if (snapshot.isEmpty()) {
                     logger.warn("向量存储为空，无法进行相似度搜索");
                     return new ArrayList<>();
                 }
                 
-                float[] queryEmbedding = embeddingModel.embed(query);
-                
-                return storage.stream()
-                        .map(item -> new ScoredDocument(item.document, 
-                            cosineSimilarity(queryEmbedding, item.embedding)))
-                        .sorted((a, b) -> Double.compare(b.score, a.score))
-                        .limit(5)
-                        .map(scored -> scored.document)
-                        .collect(Collectors.toList());
+                return search(snapshot, embedder.embedQuery(query), 5, Float.NEGATIVE_INFINITY, null);
                         
             } catch (Exception e) {
                 logger.error("相似度搜索失败", e);
                 return new ArrayList<>();
             }
         }
-        
-        private double cosineSimilarity(float[] a, float[] b) {
-            if (a.length != b.length) return 0.0;
-            
-            double dotProduct = 0.0;
-            double normA = 0.0;
-            double normB = 0.0;
-            
-            for (int i = 0; i < a.length; i++) {
-                dotProduct += a[i] * b[i];
-                normA += a[i] * a[i];
-                normB += b[i] * b[i];
-            }
-            
-            if (normA == 0.0 || normB == 0.0) return 0.0;
-            
-            return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+
+        /**
+         * 按主键查找当前文档，不存在时返回null
+         */
+        public Document getDocument(String id) {
+            writeLock.lock();
+            try {
+                Location location = idIndex.get(id);
+                if (location == null) return null;
+                for (Segment segment : segments) {
+                    if (segment.id() == location.segmentId()) {
+                        return segment.document(location.row());
+                    }
+                }
+                return null;
+            } finally {
+                writeLock.unlock();
+            }
         }
-        
-        private static class DocumentWithEmbedding {
-            final Document document;
-            final float[] embedding;
-            
-            DocumentWithEmbedding(Document document, float[] embedding) {
-                this.document = document;
-                this.embedding = embedding;
+
+        /**
+         * 手动重建索引：把全部段合并为一个段并重新训练，例如批量导入后数据分布发生明显变化时
+         */
+        public void rebuildIndex() {
+            writeLock.lock();
+            try {
+                if (!segments.isEmpty()) {
+                    segments = List.copyOf(mergeAll(segments));
+                }
+            } finally {
+                writeLock.unlock();
             }
         }
-        
-        private static class ScoredDocument {
-            final Document document;
-            final double score;
-            
-            ScoredDocument(Document document, double score) {
-                this.document = document;
-                this.score = score;
+
+        /**
+         * 压缩墓碑比例超过阈值的段：在锁外重写段并重建索引，发布前确认期间没有新的删除
+         */
+        public void compact() {
+            try {
+                for (Segment segment : segments) {
+                    if (segment.deletedCount() == 0
+                            || segment.deletedCount() < segment.size() * compactDeletedRatio) {
+                        continue;
+                    }
+                    long start = System.currentTimeMillis();
+                    Segment compacted = segment.compact(indexFactory);
+
+                    writeLock.lock();
+                    try {
+                        List<Segment> current = segments;
+                        int position = current.indexOf(segment);
+                        if (position < 0) {
+                            // 段在压缩期间又有删除或已被合并，留待下一轮
+                            continue;
+                        }
+                        List<Segment> next = new ArrayList<>(current);
+                        if (compacted != null) {
+                            next.set(position, compacted);
+                            indexSegment(compacted);
+                        } else {
+                            next.remove(position);
+                        }
+                        segments = List.copyOf(next);
+                    } finally {
+                        writeLock.unlock();
+                    }
+                    logger.info("压缩段: 清除 {} 个已删除文档，剩余 {} 个，耗时 {}ms", segment.deletedCount(),
+                            segment.liveCount(), System.currentTimeMillis() - start);
+                }
+            } catch (Exception e) {
+                logger.warn("向量存储压缩失败: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * 停止后台压缩任务，并等待尚未完成的保存写入磁盘
+         */
+        public void shutdown() {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+            if (persister != null) {
+                // 已安排的延迟保存在关闭后仍会执行，不中断正在进行的写入
+                persister.shutdown();
+                try {
+                    persister.awaitTermination(persistence.flushDelayMillis() + 30_000L, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (persistPending.get()) {
+                    persist();
+                }
+            }
+        }
+
+        /**
+         * 当前存储的全部文档（只读副本）
+         */
+        public List<Document> getDocuments() {
+            List<Segment> snapshot = segments;
+            List<Document> documents = new ArrayList<>(size(snapshot));
+            for (Segment segment : snapshot) {
+                for (int row = 0; row < segment.size(); row++) {
+                    if (!segment.isDeleted(row)) {
+                        documents.add(segment.document(row));
+                    }
+                }
+            }
+            return List.copyOf(documents);
+        }
+
+        public Map<String, Object> getIndexStats() {
+            List<Segment> snapshot = segments;
+            // 主段（最大的段）的索引代表当前索引状态
+            Map<String, Object> stats = snapshot.isEmpty() ? indexFactory.get().stats()
+                    : largest(snapshot).index().stats();
+            int deleted = 0;
+            for (Segment segment : snapshot) {
+                deleted += segment.deletedCount();
+            }
+            stats.put("documents", size(snapshot));
+            stats.put("deleted", deleted);
+            stats.put("segments", snapshot.size());
+            stats.put("vectorHeapBytes", memoryBytes());
+            stats.put("vectorMappedBytes", mappedBytes());
+            stats.put("kernel", SimilarityKernels.get().name());
+            recallTracker.appendStats(stats);
+            return stats;
+        }
+
+        /**
+         * 给段列表中的对应段打上墓碑，返回新的段列表；整段都被删除的段直接移除
+         */
+        private List<Segment> applyTombstones(List<Segment> current, Map<Long, BitSet> tombstones) {
+            if (tombstones.isEmpty()) return current;
+            List<Segment> next = new ArrayList<>(current.size());
+            for (Segment segment : current) {
+                BitSet rows = tombstones.get(segment.id());
+                if (rows == null) {
+                    next.add(segment);
+                    continue;
+                }
+                Segment updated = segment.withDeleted(rows);
+                if (updated.liveCount() > 0) {
+                    next.add(updated);
+                }
+            }
+            return next;
+        }
+
+        /**
+         * 段数过多，或主段之外新增的行数相对主段过大时，把全部段合并为一个段并重新构建索引。
+         * 近似索引（IVF质心、PQ码本等）随合并在全部数据上重新训练，数据分布漂移后召回率不会持续下降。
+         */
+        private List<Segment> maybeMerge(List<Segment> candidate) {
+            if (candidate.size() <= 1) return candidate;
+            int total = size(candidate);
+            int largest = largest(candidate).liveCount();
+            if (candidate.size() <= maxSegments && total - largest <= largest * mergeRatio) {
+                return candidate;
+            }
+            return mergeAll(candidate);
+        }
+
+        private List<Segment> mergeAll(List<Segment> candidate) {
+            long start = System.currentTimeMillis();
+            Segment merged = Segment.merge(candidate, indexFactory);
+            logger.info("合并 {} 个段为 {} 行的新段，耗时 {}ms", candidate.size(), merged.size(),
+                    System.currentTimeMillis() - start);
+            if (merged.size() == 0) {
+                idIndex.clear();
+                return List.of();
+            }
+            // 合并后行号全部变化，主键索引整体重建
+            rebuildIdIndex(List.of(merged));
+            return List.of(merged);
+        }
+
+        private void rebuildIdIndex(List<Segment> snapshot) {
+            idIndex.clear();
+            for (Segment segment : snapshot) {
+                indexSegment(segment);
+            }
+        }
+
+        private void indexSegment(Segment segment) {
+            for (int row = 0; row < segment.size(); row++) {
+                if (!segment.isDeleted(row)) {
+                    idIndex.put(DocumentIds.of(segment.document(row)), new Location(segment.id(), row));
+                }
+            }
+        }
+
+        /**
+         * 安排一次后台保存；已有尚未开始的保存时直接复用，它会保存到届时最新的段列表
+         */
+        private void schedulePersist() {
+            if (persister == null || !persistPending.compareAndSet(false, true)) return;
+            try {
+                persister.schedule(this::persist, persistence.flushDelayMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 正在关闭，由 shutdown() 同步保存
+            }
+        }
+
+        /**
+         * 保存当前段列表快照，不持有写锁
+         */
+        private void persist() {
+            if (persistence == null) return;
+            persistPending.set(false);
+            try {
+                persistence.save(segments);
+            } catch (IOException e) {
+                logger.warn("向量存储持久化失败: {}", e.getMessage());
+            }
+        }
+
+        private int size() {
+            return size(segments);
+        }
+
+        private long memoryBytes() {
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes += segment.matrix().memoryBytes();
+            }
+            return bytes;
+        }
+
+        private long mappedBytes() {
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes += segment.matrix().mappedBytes();
+            }
+            return bytes;
+        }
+
+        private static int size(List<Segment> snapshot) {
+            int size = 0;
+            for (Segment segment : snapshot) {
+                size += segment.liveCount();
+            }
+            return size;
+        }
+
+        private static Segment largest(List<Segment> snapshot) {
+            Segment largest = snapshot.get(0);
+            for (Segment segment : snapshot) {
+                if (segment.liveCount() > largest.liveCount()) {
+                    largest = segment;
+                }
+            }
+            return largest;
+        }
+
+        /**
+         * 在同一个段列表快照上检索：每个段独立取局部topK，
+         * 再以“段起始偏移 + 段内行号”作为全局行号合并到全局topK。
+         * 有过滤条件时先用元数据位图求出每个段允许的行，不满足条件的行不计算点积；
+         * 得分低于相似度阈值的行在入堆前即被丢弃，只为最终结果创建带得分的文档对象。
+         */
+        private List<Document> search(List<Segment> snapshot, float[] queryEmbedding, int topK,
+                                      float threshold, MetadataFilter filter) {
+            int dimension = snapshot.get(0).matrix().dimension();
+            if (queryEmbedding.length != dimension) {
+                logger.warn("查询向量维度 {} 与存储维度 {} 不一致", queryEmbedding.length, dimension);
+                return new ArrayList<>();
+            }
+
+            // 查询向量只归一化一次，之后每行只需一次点积
+            float[] query = FloatMatrix.normalize(queryEmbedding);
+
+            // 每个段允许返回的行：满足过滤条件且未被删除，null表示全部行
+            BitSet[] accepts = new BitSet[snapshot.size()];
+            for (int i = 0; i < snapshot.size(); i++) {
+                Segment segment = snapshot.get(i);
+                BitSet accept = filter != null ? filter.select(segment) : null;
+                if (segment.deletedRows() != null) {
+                    if (accept == null) {
+                        accept = segment.liveRows();
+                    } else {
+                        accept.andNot(segment.deletedRows());
+                    }
+                }
+                accepts[i] = accept;
+            }
+
+            // 定长最小堆选取topK，只为最终结果创建对象
+            TopKCollector collector = collect(snapshot, accepts, query, topK, threshold, false);
+            int[] rows = new int[collector.size()];
+            float[] scores = new float[collector.size()];
+            int count = collector.drain(rows, scores);
+            if (recallTracker.shouldSample() && !(snapshot.get(0).index() instanceof FlatIndex)) {
+                // 采样查询额外走一次精确扫描，统计近似索引的召回率
+                recallTracker.record(rows, collect(snapshot, accepts, query, topK, threshold, true).drainIds());
+            }
+
+            List<Document> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int base = 0;
+                for (Segment segment : snapshot) {
+                    if (rows[i] < base + segment.size()) {
+                        results.add(segment.document(rows[i] - base).mutate().score((double) scores[i]).build());
+                        break;
+                    }
+                    base += segment.size();
+                }
+            }
+            return results;
+        }
+
+        /**
+         * SearchRequest 的阈值为0时表示不过滤（SIMILARITY_THRESHOLD_ACCEPT_ALL）
+         */
+        private static float threshold(double similarityThreshold) {
+            return similarityThreshold > 0 ? (float) similarityThreshold : Float.NEGATIVE_INFINITY;
+        }
+
+        private TopKCollector collect(List<Segment> snapshot, BitSet[] accepts, float[] query, int topK,
+                                      float threshold, boolean exact) {
+            TopKCollector collector = new TopKCollector(topK, threshold);
+            int[] ids = new int[topK];
+            float[] scores = new float[topK];
+            int base = 0;
+            for (int s = 0; s < snapshot.size(); s++) {
+                Segment segment = snapshot.get(s);
+                BitSet accept = accepts[s];
+                if (accept != null && accept.isEmpty()) {
+                    // 整个段都被过滤掉，跳过
+                    base += segment.size();
+                    continue;
+                }
+                TopKCollector local = new TopKCollector(topK, threshold);
+                VectorIndex index = exact ? exactIndex : segment.index();
+                index.search(segment.matrix(), query, accept, local);
+                int count = local.drain(ids, scores);
+                for (int i = 0; i < count; i++) {
+                    collector.offer(base + ids[i], scores[i]);
+                }
+                base += segment.size();
             }
+            return collector;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,480 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 向量存储配置
+ *
+ * 对应 application.yaml 中的 vector-store 配置段，用于选择向量存储实现及其索引参数
+ */
+@ConfigurationProperties(prefix = "vector-store")
+public class VectorStoreProperties {
+
+    /**
+     * 向量存储类型：simple（暴力扫描）或 hnsw（图索引）
+     */
+    private String type = "simple";
+
+    /**
+     * simple 存储使用的检索索引：flat（精确扫描）、ivf（倒排粗量化）、int8（标量量化）、pq（乘积量化）或 binary（符号位草图），
+     * 量化索引都会用浮点向量对候选重排；int8 和 pq 的浮点向量在索引构建后移到堆外的内存映射中
+     */
+    private String index = "flat";
+
+    /**
+     * 近似索引的召回率采样比例，被采样的查询会额外执行一次精确扫描作对比，0表示关闭
+     */
+    private double recallSampleRate = 0.0;
+
+    /**
+     * 知识库检索的相似度阈值（余弦相似度），低于阈值的片段不会返回，0表示不过滤
+     */
+    private double similarityThreshold = 0.0;
+
+    private Hnsw hnsw = new Hnsw();
+
+    private Ivf ivf = new Ivf();
+
+    private Quantization quantization = new Quantization();
+
+    private Persistence persistence = new Persistence();
+
+    private EmbeddingCache embeddingCache = new EmbeddingCache();
+
+    private EmbeddingBatch embeddingBatch = new EmbeddingBatch();
+
+    private Segments segments = new Segments();
+
+    private ParallelScan parallelScan = new ParallelScan();
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public double getRecallSampleRate() {
+        return recallSampleRate;
+    }
+
+    public void setRecallSampleRate(double recallSampleRate) {
+        this.recallSampleRate = recallSampleRate;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public void setSimilarityThreshold(double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public Hnsw getHnsw() {
+        return hnsw;
+    }
+
+    public void setHnsw(Hnsw hnsw) {
+        this.hnsw = hnsw;
+    }
+
+    public Ivf getIvf() {
+        return ivf;
+    }
+
+    public void setIvf(Ivf ivf) {
+        this.ivf = ivf;
+    }
+
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    public void setQuantization(Quantization quantization) {
+        this.quantization = quantization;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public void setPersistence(Persistence persistence) {
+        this.persistence = persistence;
+    }
+
+    public EmbeddingCache getEmbeddingCache() {
+        return embeddingCache;
+    }
+
+    public void setEmbeddingCache(EmbeddingCache embeddingCache) {
+        this.embeddingCache = embeddingCache;
+    }
+
+    public EmbeddingBatch getEmbeddingBatch() {
+        return embeddingBatch;
+    }
+
+    public void setEmbeddingBatch(EmbeddingBatch embeddingBatch) {
+        this.embeddingBatch = embeddingBatch;
+    }
+
+    public Segments getSegments() {
+        return segments;
+    }
+
+    public void setSegments(Segments segments) {
+        this.segments = segments;
+    }
+
+    public ParallelScan getParallelScan() {
+        return parallelScan;
+    }
+
+    public void setParallelScan(ParallelScan parallelScan) {
+        this.parallelScan = parallelScan;
+    }
+
+    /**
+     * HNSW图索引参数
+     */
+    public static class Hnsw {
+
+        // 每个节点在上层保留的邻居数，第0层为 2 * m
+        private int m = 16;
+
+        // 构建时的候选队列长度，越大图质量越好、构建越慢
+        private int efConstruction = 200;
+
+        // 查询时的候选队列长度，越大召回率越高、查询越慢
+        private int efSearch = 64;
+
+        // 墓碑节点占比超过该值时用存活节点重建图，0表示不重建
+        private double rebuildDeletedRatio = 0.3;
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+
+        public double getRebuildDeletedRatio() {
+            return rebuildDeletedRatio;
+        }
+
+        public void setRebuildDeletedRatio(double rebuildDeletedRatio) {
+            this.rebuildDeletedRatio = rebuildDeletedRatio;
+        }
+    }
+
+    /**
+     * IVF倒排索引参数
+     */
+    public static class Ivf {
+
+        // 聚类簇数（倒排列表数）
+        private int nlist = 16;
+
+        // 查询时探测的最近簇数
+        private int nprobe = 4;
+
+        // k-means最大迭代次数
+        private int iterations = 10;
+
+        public int getNlist() {
+            return nlist;
+        }
+
+        public void setNlist(int nlist) {
+            this.nlist = nlist;
+        }
+
+        public int getNprobe() {
+            return nprobe;
+        }
+
+        public void setNprobe(int nprobe) {
+            this.nprobe = nprobe;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+    }
+
+    /**
+     * 量化索引参数
+     */
+    public static class Quantization {
+
+        // 第一遍量化扫描保留 topK * rescoreFactor 个候选，再用浮点向量精确重排
+        private int rescoreFactor = 4;
+
+        // 二值草图预过滤保留的候选数
+        private int binaryCandidates = 200;
+
+        // PQ子空间数，每个向量在堆上编码为该数量的字节（浮点向量移到堆外，只用于重排）
+        private int pqSubspaces = 64;
+
+        // PQ码本训练的k-means最大迭代次数
+        private int pqIterations = 10;
+
+        public int getRescoreFactor() {
+            return rescoreFactor;
+        }
+
+        public void setRescoreFactor(int rescoreFactor) {
+            this.rescoreFactor = rescoreFactor;
+        }
+
+        public int getBinaryCandidates() {
+            return binaryCandidates;
+        }
+
+        public void setBinaryCandidates(int binaryCandidates) {
+            this.binaryCandidates = binaryCandidates;
+        }
+
+        public int getPqSubspaces() {
+            return pqSubspaces;
+        }
+
+        public void setPqSubspaces(int pqSubspaces) {
+            this.pqSubspaces = pqSubspaces;
+        }
+
+        public int getPqIterations() {
+            return pqIterations;
+        }
+
+        public void setPqIterations(int pqIterations) {
+            this.pqIterations = pqIterations;
+        }
+    }
+
+    /**
+     * 持久化参数
+     */
+    public static class Persistence {
+
+        // 向量与文档的持久化目录，为空时不持久化
+        private String directory;
+
+        // 写操作之后延迟多久在后台保存（毫秒），延迟期间的写操作合并为一次保存
+        private long flushDelayMillis = 2000;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getFlushDelayMillis() {
+            return flushDelayMillis;
+        }
+
+        public void setFlushDelayMillis(long flushDelayMillis) {
+            this.flushDelayMillis = flushDelayMillis;
+        }
+    }
+
+    /**
+     * 嵌入缓存参数
+     */
+    public static class EmbeddingCache {
+
+        // 追加写日志文件路径，为空时不缓存
+        private String file;
+
+        // 嵌入模型名称，作为缓存键的一部分，更换模型后旧缓存自动失效
+        private String modelName = "embedding-2";
+
+        // 内存中保留的最大条目数，超出时淘汰最久未使用的条目，日志随之重写
+        private int maxEntries = 20000;
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+
+        public void setModelName(String modelName) {
+            this.modelName = modelName;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * 批量嵌入参数
+     */
+    public static class EmbeddingBatch {
+
+        // 每次调用嵌入模型的文本数
+        private int size = 16;
+
+        // 同时进行的批次数
+        private int concurrency = 4;
+
+        // 单个批次的最大尝试次数
+        private int maxAttempts = 3;
+
+        // 重试退避间隔（毫秒），第n次重试等待 n 倍间隔
+        private long retryBackoffMillis = 500;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBackoffMillis() {
+            return retryBackoffMillis;
+        }
+
+        public void setRetryBackoffMillis(long retryBackoffMillis) {
+            this.retryBackoffMillis = retryBackoffMillis;
+        }
+    }
+
+    /**
+     * 段合并参数
+     *
+     * 每次 add() 生成一个新段；段数超过 maxSegments，或主段之外的行数超过主段行数的 mergeRatio 倍时，
+     * 全部段合并为一个段并重新构建（训练）索引。
+     * 删除与覆盖写入只打墓碑，后台任务定期压缩墓碑比例超过 compactDeletedRatio 的段。
+     */
+    public static class Segments {
+
+        private int maxSegments = 8;
+
+        private double mergeRatio = 0.5;
+
+        private double compactDeletedRatio = 0.2;
+
+        // 后台压缩检查间隔，0表示关闭后台压缩
+        private long compactIntervalSeconds = 30;
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+
+        public double getMergeRatio() {
+            return mergeRatio;
+        }
+
+        public void setMergeRatio(double mergeRatio) {
+            this.mergeRatio = mergeRatio;
+        }
+
+        public double getCompactDeletedRatio() {
+            return compactDeletedRatio;
+        }
+
+        public void setCompactDeletedRatio(double compactDeletedRatio) {
+            this.compactDeletedRatio = compactDeletedRatio;
+        }
+
+        public long getCompactIntervalSeconds() {
+            return compactIntervalSeconds;
+        }
+
+        public void setCompactIntervalSeconds(long compactIntervalSeconds) {
+            this.compactIntervalSeconds = compactIntervalSeconds;
+        }
+    }
+
+    /**
+     * 暴力扫描的分区并行参数
+     */
+    public static class ParallelScan {
+
+        // 每个分区的最大行数，行数不超过该值时单线程扫描，0表示关闭分区并行
+        private int partitionRows = 16384;
+
+        // 扫描线程池并行度，0表示使用JVM公共ForkJoinPool
+        private int parallelism = 0;
+
+        public int getPartitionRows() {
+            return partitionRows;
+        }
+
+        public void setPartitionRows(int partitionRows) {
+            this.partitionRows = partitionRows;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.example.demo.controller;
 
 import com.example.demo.service.KnowledgeBaseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -28,14 +30,32 @@ public class KnowledgeBaseController {
     }
 
     /**
-     * 重新加载知识库
+     * 知识库导入状态，导入在应用启动后于后台进行
+     */
+    @GetMapping("/status")
+    public ResponseEntity<?> getStatus() {
+        return ResponseEntity.ok(knowledgeBaseService.getIngestionStatus());
+    }
+
+    /**
+     * 就绪探针：向量存储可以提供检索时返回200，否则返回503
+     * 
+     * 导入进度不影响就绪（导入期间检索使用已入库的片段），响应体中附带导入状态，完整进度见 /status
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<?> getReadiness() {
+        Map<String, Object> status = knowledgeBaseService.getIngestionStatus();
+        HttpStatus code = knowledgeBaseService.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(code).body(status);
+    }
+
+    /**
+     * 重新加载知识库，返回新增、更新、删除和未变化的片段数
      */
     @PostMapping("/reload")
     public ResponseEntity<?> reloadKnowledgeBase() {
-        String result = knowledgeBaseService.reloadKnowledgeBase();
-        return ResponseEntity.ok(Map.of(
-            "message", result,
-            "timestamp", System.currentTimeMillis()
-        ));
+        Map<String, Object> result = new LinkedHashMap<>(knowledgeBaseService.reloadKnowledgeBase());
+        result.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.demo.knowledge;
+
+/**
+ * 分割得到的文档片段
+ *
+ * @param section     片段所属章节在文件中的序号
+ * @param part        片段在章节内的序号，从0开始
+ * @param split       章节是否被拆分为多个片段，为false时整个章节就是一个片段
+ * @param startOffset 片段在原文中的起始字符偏移（包含）
+ * @param endOffset   片段在原文中的结束字符偏移（不包含）
+ * @param size        片段长度，单位由分割器的 {@link ChunkMeasure} 决定
+ * @param title       片段标题：片段内第一个Markdown标题或标题样式的短行，没有时为null
+ * @param parentTitle 上级标题：整章片段为外层标题，章节内的子片段为章节标题，没有时为null
+ * @param text        片段文本（首尾空白已去除）
+ */
+public record Chunk(int section, int part, boolean split, long startOffset, long endOffset,
+                    int size, String title, String parentTitle, String text) {
+}
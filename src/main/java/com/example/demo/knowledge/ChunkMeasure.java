@@ -0,0 +1,32 @@
+package com.example.demo.knowledge;
+
+/**
+ * 片段长度的度量方式
+ */
+public interface ChunkMeasure {
+
+    /**
+     * 按字符数度量（包括空白）
+     */
+    ChunkMeasure CHARACTERS = new ChunkMeasure() {
+        @Override
+        public int measure(CharSequence text, int from, int to) {
+            return to - from;
+        }
+
+        @Override
+        public String unit() {
+            return "chars";
+        }
+    };
+
+    /**
+     * text[from, to) 的长度
+     */
+    int measure(CharSequence text, int from, int to);
+
+    /**
+     * 长度单位，记录在片段元数据中
+     */
+    String unit();
+}
@@ -0,0 +1,313 @@
+package com.example.demo.knowledge;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * 多关键词匹配自动机（Aho-Corasick）
+ *
+ * 构建时把全部关键词编译为一个确定性自动机：先建字典树，再按层计算失败链接，
+ * 并把失败转移展开为完整的状态转移表，匹配时每个字符只查一次表、不回退。
+ * 一遍扫描即可找出文本中出现的全部关键词，耗时只与文本长度有关，与关键词数量无关。
+ *
+ * 每个关键词属于一个或多个类别（位掩码），同一个词在多个类别中注册时合并为一个关键词。
+ * 匹配不区分大小写：关键词和文本都按 {@link Character#toLowerCase(char)} 逐字符折叠。
+ * 自动机构建后不可变，可以在多个线程间共享。
+ */
+public final class KeywordAutomaton {
+
+    private final String[] keywords;
+    private final int[] categories;
+    // 字符到字母表下标的映射，不在任何关键词中出现的字符映射为-1
+    private final short[] alphabet;
+    private final int alphabetSize;
+    // 状态 s 读入字母 a 后的状态为 transitions[s * alphabetSize + a]
+    private final int[] transitions;
+    // 到达状态 s 时匹配到的全部关键词（含失败链接上的后缀关键词），没有时为null
+    private final int[][] outputs;
+    // 到达状态 s 时匹配到的关键词类别的并集
+    private final int[] outputCategories;
+
+    private KeywordAutomaton(String[] keywords, int[] categories, short[] alphabet, int alphabetSize,
+                             int[] transitions, int[][] outputs, int[] outputCategories) {
+        this.keywords = keywords;
+        this.categories = categories;
+        this.alphabet = alphabet;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.outputCategories = outputCategories;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 关键词数量，关键词编号为 [0, size)
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    public String keyword(int id) {
+        return keywords[id];
+    }
+
+    public int categories(int id) {
+        return categories[id];
+    }
+
+    /**
+     * 扫描整段文本，返回出现过的全部关键词
+     */
+    public Hits scan(CharSequence text) {
+        BitSet found = new BitSet(keywords.length);
+        int mask = 0;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = next(state, text.charAt(i));
+            int[] matched = outputs[state];
+            if (matched != null) {
+                mask |= outputCategories[state];
+                for (int id : matched) {
+                    found.set(id);
+                }
+            }
+        }
+        return new Hits(found, mask);
+    }
+
+    /**
+     * 文本中是否出现了属于给定类别的关键词，遇到第一个匹配即返回
+     */
+    public boolean containsAny(CharSequence text, int category) {
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = next(state, text.charAt(i));
+            if ((outputCategories[state] & category) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int next(int state, char c) {
+        char folded = Character.toLowerCase(c);
+        int symbol = folded < alphabet.length ? alphabet[folded] : -1;
+        return symbol < 0 ? 0 : transitions[state * alphabetSize + symbol];
+    }
+
+    /**
+     * 一次扫描的结果
+     */
+    public final class Hits {
+
+        private final BitSet found;
+        private final int mask;
+
+        private Hits(BitSet found, int mask) {
+            this.found = found;
+            this.mask = mask;
+        }
+
+        public boolean contains(int id) {
+            return found.get(id);
+        }
+
+        /**
+         * 是否匹配到给定类别中的任一关键词
+         */
+        public boolean any(int category) {
+            return (mask & category) != 0;
+        }
+
+        /**
+         * 匹配到的属于给定类别的不同关键词数
+         */
+        public int count(int category) {
+            if (!any(category)) return 0;
+            int count = 0;
+            for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1)) {
+                if ((categories[id] & category) != 0) count++;
+            }
+            return count;
+        }
+
+        /**
+         * 给定类别中各关键词是否匹配的位掩码：第 i 位对应该类别中编号第 i 小的关键词
+         *
+         * 掩码只依赖关键词的注册顺序，可以在建索引时保存、在查询时与查询的掩码直接按位比较。
+         * 类别中的关键词超过64个时抛出 IllegalStateException。
+         */
+        public long mask(int category) {
+            long mask = 0L;
+            int bit = 0;
+            for (int id = 0; id < keywords.length; id++) {
+                if ((categories[id] & category) == 0) continue;
+                if (bit == Long.SIZE) {
+                    throw new IllegalStateException("类别中的关键词超过64个，无法生成位掩码");
+                }
+                if (found.get(id)) {
+                    mask |= 1L << bit;
+                }
+                bit++;
+            }
+            return mask;
+        }
+
+        /**
+         * 匹配到的关键词，按编号顺序
+         */
+        public List<String> keywords() {
+            List<String> result = new ArrayList<>(found.cardinality());
+            for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1)) {
+                result.add(keywords[id]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 自动机构建器，非线程安全
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> keywords = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 把关键词注册到给定类别，空白关键词被忽略
+         */
+        public Builder add(int category, String... words) {
+            if (category == 0) {
+                throw new IllegalArgumentException("关键词类别不能为0");
+            }
+            for (String word : words) {
+                if (word == null || word.isEmpty()) continue;
+                keywords.merge(fold(word), category, (a, b) -> a | b);
+            }
+            return this;
+        }
+
+        public KeywordAutomaton build() {
+            String[] words = keywords.keySet().toArray(new String[0]);
+            int[] categories = keywords.values().stream().mapToInt(Integer::intValue).toArray();
+
+            // 字母表只包含关键词中出现过的字符
+            char maxChar = 0;
+            for (String word : words) {
+                for (int i = 0; i < word.length(); i++) {
+                    maxChar = (char) Math.max(maxChar, word.charAt(i));
+                }
+            }
+            short[] alphabet = new short[words.length == 0 ? 0 : maxChar + 1];
+            Arrays.fill(alphabet, (short) -1);
+            int alphabetSize = 0;
+            for (String word : words) {
+                for (int i = 0; i < word.length(); i++) {
+                    char c = word.charAt(i);
+                    if (alphabet[c] < 0) {
+                        if (alphabetSize == Short.MAX_VALUE) {
+                            throw new IllegalArgumentException("关键词包含的不同字符过多");
+                        }
+                        alphabet[c] = (short) alphabetSize++;
+                    }
+                }
+            }
+            int width = Math.max(1, alphabetSize);
+
+            // 字典树，未定义的转移为-1
+            int states = 1;
+            for (String word : words) {
+                states += word.length();
+            }
+            int[] transitions = new int[states * width];
+            Arrays.fill(transitions, -1);
+            List<List<Integer>> direct = new ArrayList<>();
+            direct.add(null);
+            int count = 1;
+            for (int id = 0; id < words.length; id++) {
+                String word = words[id];
+                int state = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    int slot = state * width + alphabet[word.charAt(i)];
+                    if (transitions[slot] < 0) {
+                        transitions[slot] = count++;
+                        direct.add(null);
+                    }
+                    state = transitions[slot];
+                }
+                if (direct.get(state) == null) {
+                    direct.set(state, new ArrayList<>(1));
+                }
+                direct.get(state).add(id);
+            }
+
+            // 按层遍历计算失败链接，同时把缺失的转移补全为失败状态上的转移
+            int[] fail = new int[count];
+            int[][] outputs = new int[count][];
+            int[] outputCategories = new int[count];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int a = 0; a < width; a++) {
+                int child = transitions[a];
+                if (child < 0) {
+                    transitions[a] = 0;
+                } else {
+                    fail[child] = 0;
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.remove();
+                int suffix = fail[state];
+                List<Integer> own = direct.get(state);
+                int[] inherited = outputs[suffix];
+                int ownCount = own != null ? own.size() : 0;
+                int inheritedCount = inherited != null ? inherited.length : 0;
+                if (ownCount + inheritedCount > 0) {
+                    int[] merged = new int[ownCount + inheritedCount];
+                    int mask = outputCategories[suffix];
+                    for (int i = 0; i < ownCount; i++) {
+                        merged[i] = own.get(i);
+                        mask |= categories[merged[i]];
+                    }
+                    if (inheritedCount > 0) {
+                        System.arraycopy(inherited, 0, merged, ownCount, inheritedCount);
+                    }
+                    outputs[state] = merged;
+                    outputCategories[state] = mask;
+                }
+                for (int a = 0; a < width; a++) {
+                    int slot = state * width + a;
+                    int child = transitions[slot];
+                    if (child < 0) {
+                        transitions[slot] = transitions[suffix * width + a];
+                    } else {
+                        fail[child] = transitions[suffix * width + a];
+                        queue.add(child);
+                    }
+                }
+            }
+
+            return new KeywordAutomaton(words, categories, alphabet, width,
+                    Arrays.copyOf(transitions, count * width), outputs, outputCategories);
+        }
+
+        private static String fold(String word) {
+            char[] chars = word.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(chars[i]);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,685 @@
+package com.example.demo.knowledge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 单遍扫描的Markdown分割器
+ *
+ * 逐字符读取文本，按行识别结构，不使用正则，也不生成中间的 String[]：
+ * - 一至 maxHeadingLevel 级标题（#、##、###）所在行开始一个新章节，更深的标题只作为章节内容
+ * - 章节内以空白行分隔段落，扫描时只记录段落的起止位置、长度及段落内第一个标题行；
+ *   段落超过 maxSize 时在行边界处断开，单行超过 maxSize 时在行内按长度硬切分（优先在空白或标点之后），
+ *   紧跟在短标题之后的第一段会给标题留出空间，标题与它合成一个片段
+ * - 长度不超过 maxSize 的章节在结束时整体作为一个片段；
+ *   章节一旦超过该长度，就按段落贪心合并为不超过 targetSize 的片段，
+ *   相邻片段之间重复不超过 overlap 的末尾几行（切分点在行内时为末尾的一段文字），
+ *   每确定一个切分点就输出前一个片段，不等待章节结束
+ * - 短于 minSize 的章节被丢弃，章节末尾过短的子片段并入前一个片段
+ * - 任何片段都不超过 maxSize
+ *
+ * 长度由 {@link ChunkMeasure} 度量，可以是字符数，也可以是估算的token数（{@link TokenEstimator}）。
+ *
+ * 内存中只保留尚未输出的字符：最多一个不超过 maxSize 的章节，或一个待输出的子片段加正在累积的段落，
+ * 再加上尚未遇到换行的当前行；当前行累积到 max(4 * maxSize, 4096) 个字符仍没有换行时，
+ * 先把前面的部分（优先切在空白或标点之后）作为行的一段处理，因此没有换行的大文件也不会整体留在内存中。
+ * 内存占用与文档总长度无关；每个片段只在输出时分配一次文本。
+ * 分割器本身不可变、线程安全，每篇文档通过 {@link #open} 获得独立的 {@link Session}，
+ * 文本可以分多次追加（例如边解码边分割），结果与一次性追加完全相同。
+ */
+public final class MarkdownChunker {
+
+    private static final int MAX_TITLE_LENGTH = 100;
+
+    // 行内硬切分时按该字符数分段度量，再在最后一段内二分查找切分点
+    private static final int MEASURE_WINDOW = 64;
+
+    // 尚未遇到换行的当前行最少可以累积的字符数
+    private static final int MIN_PENDING_LINE = 4096;
+
+    // 每个段落在数组中占用的int数：起点、终点、标题起点、标题终点（没有标题时为-1）、长度
+    private static final int STRIDE = 5;
+
+    private final int maxHeadingLevel;
+    private final ChunkMeasure measure;
+    private final int maxSize;
+    private final int targetSize;
+    private final int minSize;
+    private final int overlap;
+    private final int pendingLineLimit;
+
+    /**
+     * @param maxHeadingLevel 开始新章节的最深标题级别
+     * @param measure         长度度量方式
+     * @param maxSize         章节不超过该长度时整体作为一个片段，也是单个段落的最大长度
+     * @param targetSize      长章节拆分时每个片段的目标最大长度
+     * @param minSize         片段的最小长度
+     * @param overlap         长章节相邻片段之间重复内容的最大长度，0表示不重复
+     */
+    public MarkdownChunker(int maxHeadingLevel, ChunkMeasure measure, int maxSize, int targetSize, int minSize,
+                           int overlap) {
+        if (maxHeadingLevel < 1 || maxHeadingLevel > 6) {
+            throw new IllegalArgumentException("标题级别必须在1到6之间: " + maxHeadingLevel);
+        }
+        if (targetSize <= 0 || maxSize < targetSize) {
+            throw new IllegalArgumentException("片段长度配置不正确: target=" + targetSize + ", max=" + maxSize);
+        }
+        if (overlap < 0 || overlap >= targetSize) {
+            throw new IllegalArgumentException("重叠长度必须小于目标长度: overlap=" + overlap + ", target=" + targetSize);
+        }
+        this.maxHeadingLevel = maxHeadingLevel;
+        this.measure = measure;
+        this.maxSize = maxSize;
+        this.targetSize = targetSize;
+        this.minSize = Math.max(0, minSize);
+        this.overlap = overlap;
+        this.pendingLineLimit = Math.max(MIN_PENDING_LINE, 4 * maxSize);
+    }
+
+    public ChunkMeasure measure() {
+        return measure;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public int targetSize() {
+        return targetSize;
+    }
+
+    public int minSize() {
+        return minSize;
+    }
+
+    public int overlap() {
+        return overlap;
+    }
+
+    /**
+     * 开始分割一篇文档，片段按原文顺序推送给 sink
+     */
+    public Session open(Consumer<Chunk> sink) {
+        return new Session(sink);
+    }
+
+    /**
+     * 一次性分割整篇文本
+     */
+    public List<Chunk> chunk(CharSequence text) {
+        List<Chunk> chunks = new ArrayList<>();
+        Session session = open(chunks::add);
+        session.append(text);
+        session.finish();
+        return chunks;
+    }
+
+    /**
+     * 单篇文档的分割状态，非线程安全
+     */
+    public final class Session {
+
+        private final Consumer<Chunk> sink;
+
+        // 当前章节的字符，下标 0 对应原文偏移 sectionOffset
+        private final StringBuilder section = new StringBuilder();
+        private long sectionOffset;
+        private int lineStart;
+        // 当前行的前面部分已经因为过长而提前处理，后续部分是同一行的延续
+        private boolean lineContinued;
+
+        // 当前章节尚未丢弃的段落，布局见 STRIDE
+        private int[] paragraphs = new int[32 * STRIDE];
+        private int paragraphCount;
+        private boolean paragraphOpen;
+
+        // 各级标题的文本，用于确定上级标题
+        private final String[] headings = new String[7];
+        private String sectionParent;
+        private int sectionIndex;
+        private int currentSection = -1;
+        private boolean finished;
+
+        // 当前章节已超过 maxSize，正在逐个输出子片段
+        private boolean splitting;
+        private String sectionTitle;
+        private int nextPart;
+        // 开头的几个段落是上一个片段末尾的重复内容
+        private int overlapCount;
+        // 已切出但尚未输出的子片段：章节末尾过短的片段需要并入它
+        private Chunk pending;
+
+        private Session(Consumer<Chunk> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * 追加一段文本
+         */
+        public void append(CharSequence chars) {
+            append(chars, 0, chars.length());
+        }
+
+        /**
+         * 追加 chars[from, to) 范围内的文本
+         */
+        public void append(CharSequence chars, int from, int to) {
+            if (finished) {
+                throw new IllegalStateException("分割已结束");
+            }
+            for (int i = from; i < to; i++) {
+                char c = chars.charAt(i);
+                section.append(c);
+                if (c == '\n') {
+                    endLine(section.length() - 1, false);
+                    lineStart = section.length();
+                    lineContinued = false;
+                } else if (section.length() - lineStart >= pendingLineLimit) {
+                    splitPendingLine();
+                }
+            }
+        }
+
+        /**
+         * 当前行过长且仍没有换行：把后半段中最后一个空白或标点之前的部分先作为行的一段处理，
+         * 没有时处理整个已累积的部分
+         */
+        private void splitPendingLine() {
+            int end = section.length();
+            int cut = end;
+            for (int i = end; i > lineStart + (end - lineStart) / 2; i--) {
+                if (isBreak(section.charAt(i - 1))) {
+                    cut = i;
+                    break;
+                }
+            }
+            if (Character.isHighSurrogate(section.charAt(cut - 1))) {
+                cut--;
+            }
+            long next = sectionOffset + cut;
+            endLine(cut, true);
+            lineStart = (int) (next - sectionOffset);
+            lineContinued = true;
+        }
+
+        /**
+         * 文本结束，输出最后一个章节
+         */
+        public void finish() {
+            if (finished) return;
+            finished = true;
+            if (lineStart < section.length()) {
+                endLine(section.length(), false);
+            }
+            flushSection();
+        }
+
+        /**
+         * 处理 [lineStart, lineEnd) 范围内的一行
+         *
+         * partial 为true时这只是过长的当前行的前面部分；行的延续部分（lineContinued）不再识别标题，
+         * 空白的部分也不结束段落。
+         */
+        private void endLine(int lineEnd, boolean partial) {
+            int start = lineStart;
+            int end = lineEnd;
+            while (start < end && section.charAt(start) <= ' ') start++;
+            while (end > start && section.charAt(end - 1) <= ' ') end--;
+            if (start == end) {
+                if (!partial && !lineContinued) {
+                    paragraphOpen = false;
+                }
+                return;
+            }
+
+            int level = lineContinued ? 0 : headingLevel(start, end);
+            if (level > 0 && level <= maxHeadingLevel) {
+                // 标题行开始新章节：输出此前的内容，丢弃已处理的字符
+                flushSection();
+                int shift = lineStart;
+                section.delete(0, shift);
+                sectionOffset += shift;
+                lineStart = 0;
+                start -= shift;
+                end -= shift;
+
+                headings[level] = titleOf(start, end);
+                Arrays.fill(headings, level + 1, headings.length, null);
+                sectionParent = null;
+                for (int l = level - 1; l >= 1; l--) {
+                    if (headings[l] != null) {
+                        sectionParent = headings[l];
+                        break;
+                    }
+                }
+            }
+
+            if (currentSection < 0) {
+                currentSection = sectionIndex++;
+            }
+            int size = measure.measure(section, start, end);
+            // 缓冲区中只有不足 minSize 的内容（通常是标题）时，这一行要与它合成一个片段，放不下就先切分
+            if (size > maxSize || size > maxSize - shortPrefix(paragraphCount)) {
+                splitLine(start, end);
+                return;
+            }
+            addLine(start, end, size, !lineContinued);
+            pack(false);
+        }
+
+        /**
+         * 把超过 maxSize 的一行切成若干段，每段作为单独的一行加入段落
+         *
+         * 每段不超过 min(targetSize, maxSize - overlap)，相邻片段的重叠内容加上一段仍不超过上限；
+         * 缓冲区中只有不足 minSize 的内容（通常是章节标题）时，第一段缩短到能与它合成一个片段。
+         * 也用于本身不超过 maxSize、但放不下缓冲区中这部分短内容的行。
+         * 每加入一段就尝试输出，输出会丢弃缓冲区开头的字符，因此行内位置按原文偏移换算。
+         */
+        private void splitLine(int start, int end) {
+            int budget = Math.min(targetSize, maxSize - overlap);
+            int buffered = sizeOf(0, paragraphCount);
+            if (shortPrefix(paragraphCount) > 0 && maxSize - buffered > 0) {
+                budget = Math.min(targetSize, maxSize - buffered);
+            }
+            long lineEnd = sectionOffset + end;
+            boolean lineHead = !lineContinued;
+            while (start < end) {
+                int cut = fitForward(start, end, budget);
+                int pieceEnd = cut;
+                while (pieceEnd > start && section.charAt(pieceEnd - 1) <= ' ') pieceEnd--;
+                long next = sectionOffset + cut;
+                addLine(start, pieceEnd, measure.measure(section, start, pieceEnd), lineHead);
+                lineHead = false;
+                pack(false);
+
+                end = (int) (lineEnd - sectionOffset);
+                start = (int) (next - sectionOffset);
+                while (start < end && section.charAt(start) <= ' ') start++;
+                budget = Math.min(targetSize, maxSize - overlap);
+            }
+        }
+
+        /**
+         * 把 [start, end) 加入当前段落，段落过长时开始新段落；lineHead 为false时它是行的延续，不作为标题行
+         */
+        private void addLine(int start, int end, int size, boolean lineHead) {
+            int p = paragraphCount - 1;
+            // 段落过长时在行边界处断开；段落前只有不足 minSize 的内容时给它留出空间，避免它单独成为片段
+            if (paragraphOpen && paragraphs[p * STRIDE + 4] + size > maxSize - shortPrefix(p)) {
+                paragraphOpen = false;
+            }
+            if (!paragraphOpen) {
+                if (paragraphs.length < (paragraphCount + 1) * STRIDE) {
+                    paragraphs = Arrays.copyOf(paragraphs, paragraphs.length * 2);
+                }
+                p = paragraphCount++;
+                paragraphs[p * STRIDE] = start;
+                paragraphs[p * STRIDE + 2] = -1;
+                paragraphs[p * STRIDE + 3] = -1;
+                paragraphs[p * STRIDE + 4] = 0;
+                paragraphOpen = true;
+            }
+            paragraphs[p * STRIDE + 1] = end;
+            paragraphs[p * STRIDE + 4] += size;
+            if (lineHead && paragraphs[p * STRIDE + 2] < 0 && isTitleLine(start, end)) {
+                paragraphs[p * STRIDE + 2] = start;
+                paragraphs[p * STRIDE + 3] = end;
+            }
+        }
+
+        /**
+         * 章节结束：输出剩余内容，并重置章节状态
+         */
+        private void flushSection() {
+            if (paragraphCount > 0) {
+                pack(true);
+            }
+            paragraphCount = 0;
+            paragraphOpen = false;
+            currentSection = -1;
+            splitting = false;
+            sectionTitle = null;
+            nextPart = 0;
+            overlapCount = 0;
+            pending = null;
+        }
+
+        /**
+         * 输出已经可以确定的片段，sectionEnd 为true时输出章节的全部剩余内容
+         */
+        private void pack(boolean sectionEnd) {
+            if (!splitting) {
+                // 未拆分时缓冲区即整个章节
+                int total = sizeOf(0, paragraphCount);
+                if (total <= maxSize) {
+                    if (sectionEnd && total >= minSize) {
+                        sink.accept(chunk(false, 0, paragraphCount, sectionParent));
+                    }
+                    return;
+                }
+                splitting = true;
+                sectionTitle = firstTitle(0, paragraphCount);
+            }
+
+            // 按段落贪心合并：加入第 to 个段落会超过目标长度、且片段中已有新内容时，在它之前切分；
+            // 片段不足 minSize 时继续合并，但任何时候都不超过 maxSize
+            int span = 0;
+            int to = 0;
+            while (to < paragraphCount) {
+                if (to == 1 && overlapCount == 1 && size(0) + size(1) > maxSize) {
+                    // 重叠内容加上第一个新段落会超过上限时放弃重叠
+                    dropOverlap();
+                    span = 0;
+                    to = 0;
+                }
+                int next = span + size(to);
+                if (to > overlapCount && (next > targetSize && span >= minSize || next > maxSize)) {
+                    Chunk chunk = chunk(true, 0, to, sectionTitle);
+                    if (pending != null) {
+                        sink.accept(pending);
+                    }
+                    pending = chunk;
+
+                    carryOver(to);
+                    span = overlapCount > 0 ? size(0) : 0;
+                    to = overlapCount;
+                    continue;
+                }
+                span = next;
+                to++;
+            }
+            if (!sectionEnd) return;
+
+            int fresh = sizeOf(overlapCount, paragraphCount);
+            if (pending == null) {
+                sink.accept(chunk(false, 0, paragraphCount, sectionParent));
+            } else if (overlapCount == paragraphCount || fresh < minSize && pending.size() + fresh <= maxSize) {
+                // 末尾过短：新增部分连同分隔的空白并入前一个片段
+                int from = (int) (pending.endOffset() - sectionOffset);
+                int tail = Math.max(from, end(paragraphCount - 1));
+                sink.accept(new Chunk(pending.section(), pending.part(), pending.part() > 0, pending.startOffset(),
+                        sectionOffset + tail, pending.size() + fresh, pending.title(), pending.parentTitle(),
+                        pending.text() + section.substring(from, tail)));
+            } else {
+                sink.accept(pending);
+                sink.accept(chunk(true, 0, paragraphCount, sectionTitle));
+            }
+        }
+
+        /**
+         * 由段落 [fromParagraph, toParagraph) 生成片段，拆分的章节依次编号子片段
+         */
+        private Chunk chunk(boolean split, int fromParagraph, int toParagraph, String parentTitle) {
+            int start = start(fromParagraph);
+            int end = end(toParagraph - 1);
+            return new Chunk(currentSection, split ? nextPart++ : 0, split, sectionOffset + start, sectionOffset + end,
+                    sizeOf(fromParagraph, toParagraph), firstTitle(fromParagraph, toParagraph), parentTitle,
+                    section.substring(start, end));
+        }
+
+        /**
+         * 丢弃已输出的前 count 个段落
+         *
+         * 从这些段落的末尾向前按行回溯，总长度不超过 overlap 的末尾几行保留下来，
+         * 作为一个合成段落放在下一个片段的开头；回溯不越过本片段的新内容起点，也不覆盖整个片段。
+         * 切分点位于被硬切分的长行内部时，改为保留末尾不超过 overlap 的一段文字。
+         */
+        private void carryOver(int count) {
+            int end = end(count - 1);
+            int bound = Math.max(start(overlapCount), start(0) + 1);
+            int keepFrom = end;
+            int kept = 0;
+            int pos = end;
+            if (overlap > 0 && insideLine(end)) {
+                keepFrom = fitBackward(bound, end, overlap);
+                if (keepFrom < end) {
+                    kept = measure.measure(section, keepFrom, end);
+                }
+                pos = bound;
+            }
+            while (overlap > 0 && pos > bound) {
+                int lineBegin = pos;
+                while (lineBegin > 0 && section.charAt(lineBegin - 1) != '\n') lineBegin--;
+                int first = lineBegin;
+                while (first < pos && section.charAt(first) <= ' ') first++;
+                if (first < bound) break;
+                if (first < pos) {
+                    int size = measure.measure(section, first, pos);
+                    if (kept + size > overlap) break;
+                    kept += size;
+                    keepFrom = first;
+                }
+                pos = lineBegin - 1;
+                while (pos > bound && section.charAt(pos - 1) <= ' ') pos--;
+            }
+
+            int shift = kept > 0 ? keepFrom : end;
+            section.delete(0, shift);
+            sectionOffset += shift;
+            lineStart -= shift;
+            int remaining = paragraphCount - count;
+            int offset = kept > 0 ? 1 : 0;
+            System.arraycopy(paragraphs, count * STRIDE, paragraphs, offset * STRIDE, remaining * STRIDE);
+            paragraphCount = remaining + offset;
+            for (int p = offset; p < paragraphCount; p++) {
+                for (int i = 0; i < 4; i++) {
+                    if (paragraphs[p * STRIDE + i] >= 0) {
+                        paragraphs[p * STRIDE + i] -= shift;
+                    }
+                }
+            }
+            if (kept > 0) {
+                paragraphs[0] = 0;
+                paragraphs[1] = end - shift;
+                paragraphs[2] = -1;
+                paragraphs[3] = -1;
+                paragraphs[4] = kept;
+            }
+            overlapCount = offset;
+        }
+
+        /**
+         * 去掉开头合成的重叠段落（缓冲区保留到它的结尾，与前一个片段的结尾对齐）
+         */
+        private void dropOverlap() {
+            int shift = end(0);
+            section.delete(0, shift);
+            sectionOffset += shift;
+            lineStart -= shift;
+            paragraphCount--;
+            System.arraycopy(paragraphs, STRIDE, paragraphs, 0, paragraphCount * STRIDE);
+            for (int p = 0; p < paragraphCount; p++) {
+                for (int i = 0; i < 4; i++) {
+                    if (paragraphs[p * STRIDE + i] >= 0) {
+                        paragraphs[p * STRIDE + i] -= shift;
+                    }
+                }
+            }
+            overlapCount = 0;
+        }
+
+        /**
+         * 位置 pos 之后（跳过空格）在同一行内还有内容，即 pos 是行内硬切分的切分点
+         */
+        private boolean insideLine(int pos) {
+            while (pos < section.length()) {
+                char c = section.charAt(pos);
+                if (c == '\n' || c == '\r') return false;
+                if (c > ' ') return true;
+                pos++;
+            }
+            return false;
+        }
+
+        /**
+         * [from, to) 内从 from 开始、长度不超过 budget 的最长前缀的结束位置，至少包含一个字符
+         *
+         * 在前缀的后半段中找到空白或标点时切在它之后，避免切断英文单词或句子；不拆开代理对。
+         */
+        private int fitForward(int from, int to, int budget) {
+            int pos = from;
+            int used = 0;
+            int step = 0;
+            while (pos < to) {
+                step = Math.min(MEASURE_WINDOW, to - pos);
+                int size = measure.measure(section, pos, pos + step);
+                if (used + size > budget) break;
+                used += size;
+                pos += step;
+            }
+            int cut = pos;
+            if (pos < to) {
+                // 在超出预算的窗口内二分查找
+                int low = pos;
+                int high = pos + step;
+                while (low < high) {
+                    int mid = (low + high + 1) >>> 1;
+                    if (used + measure.measure(section, pos, mid) <= budget) {
+                        low = mid;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                cut = low;
+                for (int i = cut; i > from + (cut - from) / 2; i--) {
+                    if (isBreak(section.charAt(i - 1))) {
+                        cut = i;
+                        break;
+                    }
+                }
+            }
+            if (cut <= from) {
+                cut = from + 1;
+            }
+            if (cut < to && Character.isLowSurrogate(section.charAt(cut)) && cut - 1 > from) {
+                cut--;
+            }
+            return cut;
+        }
+
+        /**
+         * [from, to) 内以 to 结尾、长度不超过 budget 的最长后缀的起点，没有时返回 to
+         *
+         * 在后缀的前半段中找到空白或标点时从它之后开始，并跳过开头的空白。
+         */
+        private int fitBackward(int from, int to, int budget) {
+            int pos = to;
+            int used = 0;
+            int step = 0;
+            while (pos > from) {
+                step = Math.min(MEASURE_WINDOW, pos - from);
+                int size = measure.measure(section, pos - step, pos);
+                if (used + size > budget) break;
+                used += size;
+                pos -= step;
+            }
+            int keep = pos;
+            if (pos > from) {
+                int low = pos - step;
+                int high = pos;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (used + measure.measure(section, mid, pos) <= budget) {
+                        high = mid;
+                    } else {
+                        low = mid + 1;
+                    }
+                }
+                keep = low;
+                for (int i = keep; i < keep + (to - keep) / 2; i++) {
+                    if (isBreak(section.charAt(i))) {
+                        keep = i + 1;
+                        break;
+                    }
+                }
+            }
+            if (keep < to && Character.isLowSurrogate(section.charAt(keep))) {
+                keep++;
+            }
+            while (keep < to && section.charAt(keep) <= ' ') keep++;
+            return keep;
+        }
+
+        /**
+         * 段落 toParagraph 之前尚未输出的新内容（不含开头的重叠段落）的长度，不足 minSize 时返回该长度，否则返回0
+         *
+         * 这部分内容不能单独成为片段，只能与后面的段落合并，后面的段落需要为它留出空间。
+         */
+        private int shortPrefix(int toParagraph) {
+            int prefix = sizeOf(splitting ? overlapCount : 0, toParagraph);
+            return prefix < minSize ? prefix : 0;
+        }
+
+        private int start(int paragraph) {
+            return paragraphs[paragraph * STRIDE];
+        }
+
+        private int end(int paragraph) {
+            return paragraphs[paragraph * STRIDE + 1];
+        }
+
+        private int size(int paragraph) {
+            return paragraphs[paragraph * STRIDE + 4];
+        }
+
+        private int sizeOf(int fromParagraph, int toParagraph) {
+            int total = 0;
+            for (int p = fromParagraph; p < toParagraph; p++) {
+                total += size(p);
+            }
+            return total;
+        }
+
+        private String firstTitle(int fromParagraph, int toParagraph) {
+            for (int p = fromParagraph; p < toParagraph; p++) {
+                if (paragraphs[p * STRIDE + 2] >= 0) {
+                    return titleOf(paragraphs[p * STRIDE + 2], paragraphs[p * STRIDE + 3]);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Markdown标题的级别（#的个数，其后必须是空白），不是标题时返回0
+         */
+        private int headingLevel(int start, int end) {
+            int level = 0;
+            while (start + level < end && section.charAt(start + level) == '#') level++;
+            if (level == 0 || level >= end - start) return 0;
+            char next = section.charAt(start + level);
+            return next == ' ' || next == '\t' ? level : 0;
+        }
+
+        /**
+         * 标题行：以#开头，或者是不含句号的短行
+         */
+        private boolean isTitleLine(int start, int end) {
+            if (section.charAt(start) == '#') return true;
+            if (end - start >= MAX_TITLE_LENGTH) return false;
+            for (int i = start; i < end; i++) {
+                char c = section.charAt(i);
+                if (c == '。' || c == '.') return false;
+            }
+            return true;
+        }
+
+        /**
+         * 行内硬切分的优先切分位置：空白及中英文的句读标点
+         */
+        private static boolean isBreak(char c) {
+            return c <= ' ' || c == '，' || c == '。' || c == '；' || c == '、' || c == '！' || c == '？'
+                    || c == ',' || c == '.' || c == ';' || c == '!' || c == '?';
+        }
+
+        /**
+         * 去掉开头的#及空白后的标题文本
+         */
+        private String titleOf(int start, int end) {
+            while (start < end && section.charAt(start) == '#') start++;
+            while (start < end && section.charAt(start) <= ' ') start++;
+            return section.substring(start, end);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.knowledge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * 边读边分割的知识文件读取器
+ *
+ * 从 ReadableByteChannel 按固定大小的缓冲区读取字节，增量解码UTF-8（跨缓冲区的多字节字符由解码器保留到下一轮），
+ * 解码出的字符直接追加到 {@link MarkdownChunker.Session}，章节或长度边界一确定就把片段推送给 sink。
+ * 读取过程中只持有一个字节缓冲区、一个字符缓冲区和分割器中尚未输出的字符，峰值内存与文件大小无关；
+ * sink 阻塞时（例如下游队列已满）读取随之暂停。
+ *
+ * 非法的UTF-8字节序列被替换为 U+FFFD，文件开头的BOM被忽略。
+ */
+public final class StreamingChunkReader {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final MarkdownChunker chunker;
+
+    public StreamingChunkReader(MarkdownChunker chunker) {
+        this.chunker = chunker;
+    }
+
+    /**
+     * 读取通道直到结束，依次输出全部片段；通道由调用方关闭
+     */
+    public void read(ReadableByteChannel channel, Consumer<Chunk> sink) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_BYTES);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_BYTES);
+        MarkdownChunker.Session session = chunker.open(sink);
+        boolean first = true;
+
+        boolean eof = false;
+        while (!eof) {
+            eof = channel.read(bytes) < 0;
+            bytes.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, eof);
+                first = drain(chars, session, first);
+            } while (result.isOverflow());
+            bytes.compact();
+        }
+        while (decoder.flush(chars).isOverflow()) {
+            first = drain(chars, session, first);
+        }
+        drain(chars, session, first);
+        session.finish();
+    }
+
+    /**
+     * 把已解码的字符交给分割器并清空字符缓冲区
+     */
+    private static boolean drain(CharBuffer chars, MarkdownChunker.Session session, boolean first) {
+        chars.flip();
+        if (first && chars.hasRemaining()) {
+            if (chars.get(chars.position()) == '\uFEFF') {
+                chars.position(chars.position() + 1);
+            }
+            first = false;
+        }
+        session.append(chars);
+        chars.clear();
+        return first;
+    }
+}
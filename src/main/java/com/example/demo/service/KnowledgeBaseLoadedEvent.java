@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+/**
+ * 知识库首次导入结束事件
+ * 
+ * 应用启动后的后台导入结束（无论成功、部分失败还是失败）时发布一次，
+ * 依赖首次导入结果的组件（例如知识目录监听器）监听该事件后再开始工作。
+ * 
+ * @param state 首次导入结束时的状态
+ */
+public record KnowledgeBaseLoadedEvent(KnowledgeBaseService.IngestionState state) {
+}
@@ -1,13 +1,23 @@
 package com.example.demo.service;
 
-import jakarta.annotation.PostConstruct;
+import com.example.demo.config.KnowledgeProperties;
+import com.example.demo.config.VectorStoreConfig;
+import com.example.demo.config.VectorStoreProperties;
+import com.example.demo.knowledge.Chunk;
+import com.example.demo.knowledge.KeywordAutomaton;
+import com.example.demo.knowledge.MarkdownChunker;
+import com.example.demo.knowledge.StreamingChunkReader;
+import com.example.demo.vectorstore.DocumentEmbedder;
+import com.example.demo.vectorstore.EmbeddedDocumentStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
@@ -16,9 +26,17 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -58,6 +76,41 @@ public class KnowledgeBaseService {
         "medical_knowledge_diabetes.txt"      // 糖尿病知识
     };
 
+    // 关键词类别（位掩码），同一个词可以属于多个类别
+    private static final int MEDICAL_KEYWORD = 1;   // 医学相关问题的判定词
+    private static final int QUERY_KEYWORD = 1 << 1; // 查询与文档同时出现时加分的关键词
+    private static final int FAQ_QUESTION = 1 << 2;  // 问答格式：问题标记
+    private static final int FAQ_ANSWER = 1 << 3;    // 问答格式：答案标记
+    private static final int REFERENCE_RANGE = 1 << 4; // 参考值和标准信息
+    private static final int MEDICAL_TERM = 1 << 5;  // 专业术语，按出现的不同术语数加分
+
+    // 全部关键词预编译为一个自动机，判定和评分都只需对文本扫描一遍
+    private static final KeywordAutomaton KEYWORDS = KeywordAutomaton.builder()
+        .add(MEDICAL_KEYWORD,
+            // 体检指标
+            "白细胞", "血压", "血糖", "胆固醇", "肝功能", "肾功能", "心电图",
+            "中性粒细胞", "淋巴细胞", "血红蛋白", "血小板", "尿酸", "甘油三酯",
+            // 疾病名称
+            "高血压", "糖尿病", "肝炎", "心脏病", "冠心病", "脂肪肝", "肾病",
+            "贫血", "感染", "炎症", "肿瘤", "癌症",
+            // 症状和体征
+            "发热", "疼痛", "咳嗽", "胸闷", "头晕", "乏力", "水肿", "黄疸",
+            // 医学术语
+            "诊断", "治疗", "药物", "检查", "化验", "体检", "健康", "医学",
+            "临床", "病理", "生理", "解剖", "免疫", "代谢")
+        .add(QUERY_KEYWORD,
+            "血压", "测量", "时间", "黄金时间", "白细胞", "升高",
+            "心电图", "异常", "心脏病", "胆固醇", "肝功能", "血糖")
+        .add(FAQ_QUESTION, "q:", "问:", "q1:", "q2:")
+        .add(FAQ_ANSWER, "a:", "答:")
+        .add(REFERENCE_RANGE, "正常参考值", "正常范围", "参考范围")
+        .add(MEDICAL_TERM, "升高", "降低", "异常", "正常", "建议", "注意", "可能")
+        .build();
+
+    // 文档特征的版本：关键词或评分规则变化时递增。
+    // 版本参与内容哈希，重新加载时全部片段的特征随之更新；版本不符的特征在查询时重新计算
+    private static final int FEATURE_VERSION = 1;
+
     // Spring AI向量存储，用于存储和检索文档向量
     @Autowired
     private VectorStore vectorStore;
@@ -66,225 +119,605 @@ public class KnowledgeBaseService {
     @Autowired
     private EmbeddingModel embeddingModel;
 
+    // 向量存储配置，提供检索的相似度阈值
+    @Autowired
+    private VectorStoreProperties vectorStoreProperties;
+
+    // 知识库配置，提供导入流水线各阶段的并行度
+    @Autowired
+    private KnowledgeProperties knowledgeProperties;
+
+    // 文档嵌入入口（带缓存和批量并发），导入流水线的嵌入阶段直接调用
+    @Autowired
+    private DocumentEmbedder documentEmbedder;
+
+    // Markdown分割器，片段大小由 knowledge.chunking 配置
+    @Autowired
+    private MarkdownChunker chunker;
+
+    // 每个来源上次同步到向量存储的片段：来源键 -> (片段主键 -> 内容哈希)
+    // 来源键区分classpath文件和热加载目录中的文件（见 classpathSource / fileSource），
+    // 片段主键以来源键为前缀，同名或同类型的不同来源不会互相覆盖或删除对方的片段
+    private final Map<String, Map<String, String>> ingestedChunks = new ConcurrentHashMap<>();
+
+    /**
+     * 知识库导入状态
+     */
+    public enum IngestionState {
+        PENDING,   // 应用尚未就绪，导入未开始
+        LOADING,   // 正在后台导入
+        READY,     // 全部文件导入完成
+        PARTIAL,   // 导入完成，但部分文件失败（见状态中的 failedFiles）
+        FAILED     // 导入失败，检索仍使用已入库的片段
+    }
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 后台导入进度，供状态接口读取；首次导入、重新加载和目录监听的单文件同步都会更新
+    private volatile IngestionState ingestionState = IngestionState.PENDING;
+    private volatile int loadedFiles;
+    private volatile long ingestionStartTime;
+    private volatile long ingestionEndTime;
+    private volatile String ingestionError;
+    private volatile long lastSyncTime;
+    // 最近一次同步失败的来源：来源键 -> 错误信息，该来源之后同步成功或被移除时清除
+    private final Map<String, String> failedSources = new ConcurrentHashMap<>();
+
     /**
      * 服务初始化方法
      * 
-     * 在Spring容器启动后自动执行，负责：
+     * 在应用就绪（ApplicationReadyEvent）后于后台线程执行，负责：
      * 1. 加载所有医学知识库文件
      * 2. 处理和分割文档内容
      * 3. 生成向量嵌入
      * 4. 存储到向量数据库
      * 
-     * 使用@PostConstruct确保在依赖注入完成后执行
+     * 嵌入需要远程调用，耗时较长，因此不阻塞Spring容器启动和HTTP端口监听：
+     * 导入期间检索直接使用已入库的片段（包括持久化恢复的数据），进度通过 getIngestionStatus 查询。
+     * 首次导入结束后发布 {@link KnowledgeBaseLoadedEvent}。
      */
-    @PostConstruct
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::initializeKnowledgeBase, "knowledge-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public void initializeKnowledgeBase() {
         try {
             logger.info("开始初始化医学知识库...");
             
-            // 记录初始化开始时间，用于性能监控
-            long startTime = System.currentTimeMillis();
-            
-            // 遍历所有知识库文件
-            for (String fileName : KNOWLEDGE_BASE_FILES) {
-                try {
-                    // 加载单个知识库文件
-                    loadKnowledgeFile(fileName);
-                    logger.info("成功加载知识库文件: {}", fileName);
-                } catch (Exception e) {
-                    // 单个文件加载失败不应该影响其他文件
-                    logger.error("加载知识库文件失败: {}", fileName, e);
-                }
-            }
+            ChunkDiff diff = syncAllKnowledgeFiles();
             
-            // 计算并记录初始化耗时
-            long endTime = System.currentTimeMillis();
-            logger.info("医学知识库初始化完成，耗时: {}ms", endTime - startTime);
+            logger.info("医学知识库初始化完成，状态 {}，新增 {}，更新 {}，删除 {}，未变化 {}，失败 {}，耗时: {}ms",
+                    ingestionState, diff.added, diff.updated, diff.deleted, diff.unchanged, diff.failed,
+                    ingestionEndTime - ingestionStartTime);
             
         } catch (Exception e) {
-            // 记录初始化失败的错误
             logger.error("医学知识库初始化失败", e);
+        } finally {
+            eventPublisher.publishEvent(new KnowledgeBaseLoadedEvent(ingestionState));
         }
     }
 
     /**
-     * 加载单个知识库文件
+     * 同步全部classpath知识库文件并维护导入状态，首次导入和重新加载共用
      * 
-     * 处理流程：
-     * 1. 从classpath读取文件内容
-     * 2. 使用高级策略分割文档
-     * 3. 为每个文档片段添加元数据
-     * 4. 存储到向量数据库
+     * 与单文件同步共用同一把锁，状态的变化顺序与同步的执行顺序一致
+     */
+    private synchronized ChunkDiff syncAllKnowledgeFiles() throws InterruptedException {
+        ingestionState = IngestionState.LOADING;
+        ingestionError = null;
+        // 记录开始时间，用于性能监控
+        ingestionStartTime = System.currentTimeMillis();
+        try {
+            ChunkDiff diff = syncKnowledgeFiles();
+            ingestionEndTime = System.currentTimeMillis();
+            lastSyncTime = ingestionEndTime;
+            ingestionState = completedState();
+            return diff;
+        } catch (Exception e) {
+            // 记录整体失败的错误
+            ingestionEndTime = System.currentTimeMillis();
+            ingestionError = e.getMessage();
+            ingestionState = IngestionState.FAILED;
+            throw e;
+        }
+    }
+
+    /**
+     * 单个来源同步结束后更新状态：记录或清除该来源的失败，导入已结束时按失败情况重新判定 READY / PARTIAL
+     */
+    private void recordSourceResult(String sourceKey, String error) {
+        if (error == null) {
+            failedSources.remove(sourceKey);
+        } else {
+            failedSources.put(sourceKey, error);
+        }
+        lastSyncTime = System.currentTimeMillis();
+        IngestionState state = ingestionState;
+        if (state == IngestionState.READY || state == IngestionState.PARTIAL) {
+            ingestionState = completedState();
+        }
+    }
+
+    private IngestionState completedState() {
+        return failedSources.isEmpty() ? IngestionState.READY : IngestionState.PARTIAL;
+    }
+
+    /**
+     * 知识库导入状态：state、已处理文件数、总文件数、耗时、失败的文件和错误信息
+     */
+    public Map<String, Object> getIngestionStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        IngestionState state = ingestionState;
+        status.put("state", state);
+        status.put("ready", isReady());
+        status.put("loadedFiles", loadedFiles);
+        status.put("totalFiles", KNOWLEDGE_BASE_FILES.length);
+        if (state != IngestionState.PENDING) {
+            long end = state == IngestionState.LOADING ? System.currentTimeMillis() : ingestionEndTime;
+            status.put("elapsedMs", end - ingestionStartTime);
+        }
+        if (lastSyncTime > 0) {
+            status.put("lastSyncTime", lastSyncTime);
+        }
+        if (vectorStore instanceof VectorStoreConfig.SimpleInMemoryVectorStore store) {
+            status.put("indexedDocuments", store.getDocuments().size());
+        }
+        if (!failedSources.isEmpty()) {
+            status.put("failedFiles", new TreeMap<>(failedSources));
+        }
+        if (ingestionError != null) {
+            status.put("error", ingestionError);
+        }
+        return status;
+    }
+
+    /**
+     * 知识库能否提供检索
+     * 
+     * 向量存储在创建时同步恢复持久化数据，创建完成即可检索；导入进度不影响就绪，
+     * 导入期间检索使用已入库的片段，进度见 getIngestionStatus
+     */
+    public boolean isReady() {
+        return vectorStore != null;
+    }
+
+    /**
+     * 同步全部知识库文件，返回累计的片段差异
+     * 
+     * 文件经过 打开 → 边读边分割比对 → 批量嵌入 → 写入 四阶段流水线处理（见 {@link KnowledgeIngestionPipeline}），
+     * 一个文件的分割与另一个文件的嵌入同时进行；文件按批次流经各阶段，大文件不需要整体读入内存。
+     * 写入阶段单线程，保证同一时刻只有一个批次修改向量存储。单个文件失败只记录日志和失败来源，不影响其他文件；
+     * 文件不存在、任一批次失败或未走完流水线都算作失败。
+     */
+    private synchronized ChunkDiff syncKnowledgeFiles() throws InterruptedException {
+        ChunkDiff total = new ChunkDiff();
+        loadedFiles = 0;
+        Set<String> completed = new HashSet<>();
+        Map<String, String> errors = new ConcurrentHashMap<>();
+        KnowledgeProperties.Pipeline pipeline = knowledgeProperties.getPipeline();
+        new KnowledgeIngestionPipeline(pipeline.getQueueCapacity())
+                .stage("read", pipeline.getReadParallelism(), (String fileName) -> {
+                    KnowledgeSource source = openKnowledgeFile(fileName);
+                    if (source == null) {
+                        errors.put(fileName, "文件不存在");
+                    }
+                    return source;
+                })
+                .fanOutStage("split", pipeline.getSplitParallelism(), this::splitKnowledgeFile)
+                .stage("embed", pipeline.getEmbedParallelism(), this::embedChunks)
+                .stage("index", 1, (ChunkPlan plan) -> {
+                    boolean done = applyChunks(plan);
+                    total.add(plan.diff);
+                    if (done) {
+                        completed.add(plan.file.fileName);
+                        loadedFiles++;
+                        if (plan.file.diff.failed > 0) {
+                            errors.put(plan.file.fileName, failedChunksMessage(plan.file));
+                        } else {
+                            logger.info("成功加载知识库文件: {}", plan.file.fileName);
+                        }
+                    }
+                    return null;
+                })
+                .onFailure((item, e) -> errors.putIfAbsent(pipelineFileName(item), String.valueOf(e.getMessage())))
+                .run(List.of(KNOWLEDGE_BASE_FILES));
+
+        for (String fileName : KNOWLEDGE_BASE_FILES) {
+            String error = errors.get(fileName);
+            if (error == null && !completed.contains(fileName)) {
+                error = "未完成导入";
+            }
+            if (error == null) {
+                failedSources.remove(classpathSource(fileName));
+            } else {
+                failedSources.put(classpathSource(fileName), error);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 流水线各阶段的输入元素所属的知识库文件名
+     */
+    private static String pipelineFileName(Object item) {
+        if (item instanceof KnowledgeSource source) return source.fileName();
+        if (item instanceof ChunkPlan plan) return plan.file.fileName;
+        return String.valueOf(item);
+    }
+
+    /**
+     * 读取阶段：打开classpath下的知识库文件，文件不存在时返回null
      * 
      * @param fileName 知识库文件名
-     * @throws IOException 文件读取异常
+     * @return 文件名及读取通道，通道由分割阶段关闭
+     * @throws IOException 文件打开异常
      */
-    private void loadKnowledgeFile(String fileName) throws IOException {
+    private KnowledgeSource openKnowledgeFile(String fileName) throws IOException {
         // 使用ClassPathResource读取classpath下的文件
         ClassPathResource resource = new ClassPathResource(fileName);
         
         // 检查文件是否存在
         if (!resource.exists()) {
             logger.warn("知识库文件不存在: {}", fileName);
-            return;
+            return null;
         }
+        return new KnowledgeSource(fileName, Channels.newChannel(resource.getInputStream()));
+    }
 
-        // 读取文件内容，使用UTF-8编码确保中文正确处理
-        String content = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-        
-        // 验证文件内容不为空
-        if (content.trim().isEmpty()) {
-            logger.warn("知识库文件内容为空: {}", fileName);
-            return;
+    /**
+     * 分割阶段：边解码边分割，每积累一批需要写入的片段就交给下游（下游队列满时读取暂停）
+     */
+    private void splitKnowledgeFile(KnowledgeSource source, Consumer<ChunkPlan> out) throws IOException {
+        try (ReadableByteChannel channel = source.channel()) {
+            streamChunks(classpathSource(source.fileName()), source.fileName(), channel, out);
         }
+    }
 
-        // 使用高级分割策略处理文档内容
-        List<Document> documents = splitContentAdvanced(content, fileName);
-        
-        // 记录分割结果
-        logger.info("文件 {} 分割为 {} 个文档片段", fileName, documents.size());
+    /**
+     * 嵌入阶段：为新增和变化的片段批量计算嵌入向量，不变的片段不调用嵌入模型
+     * 
+     * 向量存储不支持直接写入已嵌入文档时跳过，由写入阶段的 add 自行嵌入
+     */
+    private ChunkPlan embedChunks(ChunkPlan plan) {
+        if (!plan.changed.isEmpty() && vectorStore instanceof EmbeddedDocumentStore) {
+            List<String> contents = new ArrayList<>(plan.changed.size());
+            for (Document doc : plan.changed) {
+                contents.add(doc.getText());
+            }
+            plan.embeddings = documentEmbedder.embedDocuments(contents);
+        }
+        return plan;
+    }
 
-        // 将文档片段添加到向量存储
-        if (!documents.isEmpty()) {
-            vectorStore.add(documents);
-            logger.debug("已将 {} 个文档片段添加到向量存储", documents.size());
+    /**
+     * 导入热加载目录中的单个文件（新增或修改），只同步有差异的片段
+     * 
+     * 文件以流的方式读取和分割，每批片段分割完成后立即写入
+     * 
+     * @param file 知识文件路径，元数据中的来源为文件名，来源键为规范化的绝对路径
+     * @return 片段差异计数
+     */
+    public synchronized Map<String, Object> syncKnowledgeFile(Path file) throws IOException {
+        String sourceKey = fileSource(file);
+        String fileName = file.getFileName().toString();
+        ChunkDiff total = new ChunkDiff();
+        String[] failed = new String[1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            streamChunks(sourceKey, fileName, channel, plan -> {
+                if (applyChunks(plan) && plan.file.diff.failed > 0) {
+                    failed[0] = failedChunksMessage(plan.file);
+                }
+                total.add(plan.diff);
+            });
+        } catch (IOException | RuntimeException e) {
+            recordSourceResult(sourceKey, String.valueOf(e.getMessage()));
+            throw e;
         }
+        recordSourceResult(sourceKey, failed[0]);
+        return total.toMap();
     }
 
     /**
-     * 高级内容分割策略
+     * 删除热加载目录中某个文件的全部片段（文件被删除时），只影响该文件自己的片段
      * 
-     * 相比简单的段落分割，这个方法提供更智能的分割：
-     * 1. 优先按三级标题（###）分割
-     * 2. 如果没有三级标题，按二级标题（##）分割
-     * 3. 对过长的段落进一步细分
+     * @param file 被删除的知识文件路径
+     * @return 删除的片段数
+     */
+    public synchronized int removeKnowledgeSource(Path file) {
+        String sourceKey = fileSource(file);
+        String fileName = file.getFileName().toString();
+        List<String> ids = new ArrayList<>(existingChunks(sourceKey, fileName).keySet());
+        if (!ids.isEmpty()) {
+            vectorStore.delete(ids);
+        }
+        ingestedChunks.remove(sourceKey);
+        recordSourceResult(sourceKey, null);
+        logger.info("知识库文件 {} 已移除，删除 {} 个文档片段", file, ids.size());
+        return ids.size();
+    }
+
+    /**
+     * classpath中内置知识库文件的来源键
+     */
+    private static String classpathSource(String fileName) {
+        return "classpath:" + fileName;
+    }
+
+    /**
+     * 热加载目录中文件的来源键
+     */
+    private static String fileSource(Path file) {
+        return "file:" + file.toAbsolutePath().normalize();
+    }
+
+    /**
+     * 流式分割并比对一个知识文件
+     * 
+     * 使用单遍扫描的 {@link MarkdownChunker}，边解码UTF-8边分割：
+     * 1. 一至三级标题（#、##、###）开始新的章节
+     * 2. 不超过 max-size 的章节整体作为一个片段
+     * 3. 过长的章节按段落合并为约 target-size 的子片段，相邻子片段重叠不超过 overlap
      * 4. 保持语义完整性
      * 
      * 分割原则：
-     * - 每个片段长度适中（50-1000字符）
+     * - 片段大小按估算的token数确定，与嵌入模型的输入窗口匹配（见 knowledge.chunking）
      * - 保持主题完整性
-     * - 添加丰富的元数据信息
+     * - 添加丰富的元数据信息（标题、上级标题、原文偏移、片段大小及分割配置、内容哈希）
+     * 
+     * 每个片段与向量存储中的现有片段按主键和内容哈希比对，只有新增和变化的片段进入批次；
+     * 批次满 batchChunks 个片段时交给 out，最后一个批次带上文件中已不存在的片段主键。
+     * 内存中只保留当前批次和全部片段的主键哈希，与文件大小基本无关。
      * 
-     * @param content 完整的文档内容
+     * @param sourceKey 来源键，片段主键的前缀
      * @param fileName 文件名，用于元数据
-     * @return 分割后的文档片段列表
+     * @param channel 文件内容
+     * @param out 批次的接收方
      */
-    private List<Document> splitContentAdvanced(String content, String fileName) {
-        List<Document> documents = new ArrayList<>();
-        
+    private void streamChunks(String sourceKey, String fileName, ReadableByteChannel channel,
+                              Consumer<ChunkPlan> out) throws IOException {
         // 确定知识库类型，用于分类和检索优化
         String knowledgeType = getKnowledgeType(fileName);
+        FileSync file = new FileSync(sourceKey, fileName, existingChunks(sourceKey, fileName));
+        int batchChunks = Math.max(1, knowledgeProperties.getPipeline().getBatchChunks());
 
-        // 第一步：尝试按三级标题分割（### 标题）
-        // 三级标题通常表示具体的知识点或概念
-        String[] sections = content.split("(?=^###\\s)", Pattern.MULTILINE);
-
-        for (int i = 0; i < sections.length; i++) {
-            String section = sections[i].trim();
-            
-            // 过滤太短的片段，避免无意义的内容
-            if (section.isEmpty() || section.length() < 50) continue;
-
-            // 对于过长的段落，进一步细分
-            if (section.length() > 1000) {
-                List<Document> subDocs = splitLongSection(section, fileName, knowledgeType, i);
-                documents.addAll(subDocs);
-            } else {
-                // 创建单个文档片段
-                Map<String, Object> metadata = createMetadata(fileName, knowledgeType, i, section);
-                documents.add(new Document(section, metadata));
+        ChunkPlan[] batch = {new ChunkPlan(file)};
+        new StreamingChunkReader(chunker).read(channel, chunk -> {
+            Document doc = new Document(chunk.text(), createMetadata(sourceKey, fileName, knowledgeType, chunk));
+            planChunk(batch[0], doc);
+            if (batch[0].changed.size() >= batchChunks) {
+                file.batches++;
+                out.accept(batch[0]);
+                batch[0] = new ChunkPlan(file);
             }
-        }
+        });
 
-        // 第二步：如果没有三级标题，尝试按二级标题分割（## 标题）
-        if (documents.isEmpty()) {
-            sections = content.split("(?=^##\\s)", Pattern.MULTILINE);
-            
-            for (int i = 0; i < sections.length; i++) {
-                String section = sections[i].trim();
-                if (section.isEmpty() || section.length() < 50) continue;
-
-                if (section.length() > 1000) {
-                    List<Document> subDocs = splitLongSection(section, fileName, knowledgeType, i);
-                    documents.addAll(subDocs);
-                } else {
-                    Map<String, Object> metadata = createMetadata(fileName, knowledgeType, i, section);
-                    documents.add(new Document(section, metadata));
-                }
+        ChunkPlan last = batch[0];
+        for (String id : file.existing.keySet()) {
+            if (!file.current.containsKey(id)) {
+                last.removed.add(id);
             }
         }
+        last.diff.deleted = last.removed.size();
+        logger.info("文件 {} 分割为 {} 个文档片段", fileName, file.current.size());
+        // 批次总数在最后一个批次交出之前确定，写入阶段据此判断文件是否完成
+        file.totalBatches = file.batches + 1;
+        out.accept(last);
+    }
 
-        return documents;
+    /**
+     * 为片段添加内容哈希，与现有片段比对：新增和变化的片段加入批次，未变化的只计数
+     */
+    private void planChunk(ChunkPlan plan, Document doc) {
+        String id = doc.getMetadata().get("id").toString();
+        // 分割配置和特征版本也参与哈希：变化后即使文本相同也会重新写入，元数据随之更新
+        String hash = contentHash(chunker.measure().unit() + "/" + chunker.targetSize() + "/" + chunker.maxSize()
+                + "/" + chunker.overlap() + "/f" + FEATURE_VERSION + "\n" + doc.getText());
+        doc.getMetadata().put("contentHash", hash);
+        plan.file.current.put(id, hash);
+
+        String previous = plan.file.existing.get(id);
+        if (previous == null) {
+            plan.diff.added++;
+            plan.changed.add(doc);
+        } else if (!previous.equals(hash)) {
+            plan.diff.updated++;
+            plan.changed.add(doc);
+        } else {
+            plan.diff.unchanged++;
+        }
     }
 
     /**
-     * 分割过长的文档段落
-     * 
-     * 对于超过1000字符的长段落，需要进一步细分以：
-     * 1. 提高检索精度
-     * 2. 减少无关信息干扰
-     * 3. 适应AI模型的上下文窗口限制
+     * 把一个批次写入向量存储，已计算嵌入向量时直接写入，否则由向量存储嵌入
      * 
-     * 分割策略：
-     * - 按段落（双换行）分割
-     * - 控制每个子文档在800字符以内
-     * - 保持段落完整性
-     * - 继承父段落的元数据
+     * 重复同步同一内容不会产生任何写入，也不会调用嵌入模型。
+     * 嵌入失败而未写入的片段计为失败，不记录新的内容哈希：新增的片段不记录，更新的片段保留旧哈希，
+     * 下次同步时会重新写入。
      * 
-     * @param section 需要分割的长段落
-     * @param fileName 文件名
-     * @param knowledgeType 知识库类型
-     * @param sectionIndex 段落索引
-     * @return 分割后的子文档列表
+     * @return 该文件的全部批次是否均已处理
      */
-    private List<Document> splitLongSection(String section, String fileName, String knowledgeType, int sectionIndex) {
-        List<Document> subDocs = new ArrayList<>();
-        
-        // 提取段落标题（如果存在）
-        String sectionTitle = extractTitle(section);
-        
-        // 按段落分割
-        String[] paragraphs = section.split("\n\n");
-        StringBuilder currentChunk = new StringBuilder();
-
-        for (String paragraph : paragraphs) {
-            paragraph = paragraph.trim();
-            if (paragraph.isEmpty()) continue;
-
-            // 如果当前块加上新段落超过800字符，则创建新文档
-            if (currentChunk.length() > 0 && currentChunk.length() + paragraph.length() > 800) {
-                // 确保当前块有足够的内容
-                if (currentChunk.length() > 50) {
-                    Map<String, Object> metadata = createMetadata(fileName, knowledgeType, sectionIndex, currentChunk.toString());
-                    
-                    // 如果有段落标题，添加到元数据中
-                    if (sectionTitle != null) {
-                        metadata.put("parentTitle", sectionTitle);
+    private boolean applyChunks(ChunkPlan plan) {
+        FileSync file = plan.file;
+        List<Document> changed = plan.changed;
+
+        // 同一主键的写入会覆盖旧片段，因此新增和更新可以一次写入
+        if (!changed.isEmpty()) {
+            if (plan.embeddings != null && vectorStore instanceof EmbeddedDocumentStore store) {
+                Set<String> written = new HashSet<>(store.addEmbedded(changed, plan.embeddings));
+                for (Document doc : changed) {
+                    String id = doc.getMetadata().get("id").toString();
+                    if (!written.contains(id)) {
+                        if (file.existing.containsKey(id)) {
+                            plan.diff.updated--;
+                        } else {
+                            plan.diff.added--;
+                        }
+                        plan.diff.failed++;
+                        file.failedIds.add(id);
                     }
-                    
-                    subDocs.add(new Document(currentChunk.toString(), metadata));
                 }
-                // 重置当前块
-                currentChunk = new StringBuilder();
+            } else {
+                vectorStore.add(changed);
             }
+            logger.debug("已将 {} 个文档片段写入向量存储", changed.size() - plan.diff.failed);
+        }
+        if (!plan.removed.isEmpty()) {
+            vectorStore.delete(plan.removed);
+        }
 
-            // 添加段落到当前块
-            if (currentChunk.length() > 0) {
-                currentChunk.append("\n\n");
+        file.diff.add(plan.diff);
+        if (++file.appliedBatches != file.totalBatches) {
+            return false;
+        }
+        // 分割已结束，此时才修改 current
+        for (String id : file.failedIds) {
+            String previous = file.existing.get(id);
+            if (previous == null) {
+                file.current.remove(id);
+            } else {
+                file.current.put(id, previous);
             }
-            currentChunk.append(paragraph);
         }
+        ingestedChunks.put(file.sourceKey, file.current);
+        ChunkDiff diff = file.diff;
+        logger.info("知识库文件 {} 同步完成: 新增 {}，更新 {}，删除 {}，未变化 {}，失败 {}",
+                file.fileName, diff.added, diff.updated, diff.deleted, diff.unchanged, diff.failed);
+        return true;
+    }
 
-        // 处理最后一个块
-        if (currentChunk.length() > 50) {
-            Map<String, Object> metadata = createMetadata(fileName, knowledgeType, sectionIndex, currentChunk.toString());
-            if (sectionTitle != null) {
-                metadata.put("parentTitle", sectionTitle);
+    private static String failedChunksMessage(FileSync file) {
+        return file.diff.failed + " 个片段嵌入失败";
+    }
+
+    /**
+     * 向量存储中该来源现有片段的主键及内容哈希
+     * 
+     * 优先使用本服务记录的上次同步结果；首次同步时从可枚举的向量存储中恢复（例如从持久化文件加载的片段）。
+     * 旧版本写入的片段没有来源键，按文件名归属，它们的主键格式不同，会在本次同步中被替换。
+     */
+    private Map<String, String> existingChunks(String sourceKey, String fileName) {
+        Map<String, String> known = ingestedChunks.get(sourceKey);
+        if (known != null) {
+            return known;
+        }
+        Map<String, String> existing = new HashMap<>();
+        if (vectorStore instanceof VectorStoreConfig.SimpleInMemoryVectorStore store) {
+            for (Document doc : store.getDocuments()) {
+                Object docSource = doc.getMetadata().get("sourceKey");
+                if (docSource != null ? !sourceKey.equals(docSource)
+                        : !fileName.equals(doc.getMetadata().get("source"))) continue;
+                Object id = doc.getMetadata().get("id");
+                Object hash = doc.getMetadata().get("contentHash");
+                if (id != null) {
+                    // 没有内容哈希的旧片段视为已变化
+                    existing.put(id.toString(), hash != null ? hash.toString() : "");
+                }
             }
-            subDocs.add(new Document(currentChunk.toString(), metadata));
         }
+        return existing;
+    }
 
-        return subDocs;
+    /**
+     * 读取阶段的输出：文件名及尚未读取的内容通道
+     */
+    private record KnowledgeSource(String fileName, ReadableByteChannel channel) {
+
+        @Override
+        public String toString() {
+            return fileName;
+        }
+    }
+
+    /**
+     * 单个文件的同步状态，由该文件的全部批次共享
+     * 
+     * 分割阶段写入 current、batches 和 totalBatches，写入阶段（单线程）更新 appliedBatches 和 diff；
+     * 嵌入阶段并行时同一文件的批次可能乱序到达，全部批次写入后才记录同步结果
+     */
+    private static final class FileSync {
+        private final String sourceKey;
+        private final String fileName;
+        // 上次同步的片段：主键 -> 内容哈希
+        private final Map<String, String> existing;
+        // 文件当前的全部片段：主键 -> 内容哈希
+        private final Map<String, String> current = new LinkedHashMap<>();
+        private final ChunkDiff diff = new ChunkDiff();
+        // 嵌入失败、未写入向量存储的片段主键，只由写入阶段访问
+        private final List<String> failedIds = new ArrayList<>();
+        private int batches;
+        private volatile int totalBatches = -1;
+        private int appliedBatches;
+
+        private FileSync(String sourceKey, String fileName, Map<String, String> existing) {
+            this.sourceKey = sourceKey;
+            this.fileName = fileName;
+            this.existing = existing;
+        }
+    }
+
+    /**
+     * 一个同步批次：需要写入的片段、（最后一个批次中）需要删除的片段，以及嵌入阶段之后的嵌入向量
+     */
+    private static final class ChunkPlan {
+        private final FileSync file;
+        private final List<Document> changed = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+        private final ChunkDiff diff = new ChunkDiff();
+        private List<float[]> embeddings;
+
+        private ChunkPlan(FileSync file) {
+            this.file = file;
+        }
+
+        @Override
+        public String toString() {
+            return file.fileName;
+        }
+    }
+
+    /**
+     * 片段差异计数
+     */
+    private static final class ChunkDiff {
+        private int added;
+        private int updated;
+        private int deleted;
+        private int unchanged;
+        private int failed;
+
+        private void add(ChunkDiff other) {
+            added += other.added;
+            updated += other.updated;
+            deleted += other.deleted;
+            unchanged += other.unchanged;
+            failed += other.failed;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("added", added);
+            map.put("updated", updated);
+            map.put("deleted", deleted);
+            map.put("unchanged", unchanged);
+            map.put("failed", failed);
+            return map;
+        }
+    }
+
+    /**
+     * 计算文本内容的SHA-256哈希（十六进制）
+     */
+    private String contentHash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
     }
 
     /**
@@ -296,31 +729,52 @@ public class KnowledgeBaseService {
      * 3. 上下文信息提供
      * 4. 调试和监控
      * 
+     * @param sourceKey 来源键
      * @param fileName 源文件名
      * @param knowledgeType 知识库类型
-     * @param chunkIndex 片段索引
-     * @param content 文档内容
+     * @param chunk 分割得到的片段
      * @return 元数据Map
      */
-    private Map<String, Object> createMetadata(String fileName, String knowledgeType, int chunkIndex, String content) {
+    private Map<String, Object> createMetadata(String sourceKey, String fileName, String knowledgeType,
+                                               Chunk chunk) {
         Map<String, Object> metadata = new HashMap<>();
+        String content = chunk.text();
         
         // 基础元数据
         metadata.put("source", fileName);                           // 来源文件
+        metadata.put("sourceKey", sourceKey);                       // 来源键（classpath或文件路径）
         metadata.put("type", knowledgeType);                       // 知识库类型
-        metadata.put("chunk", chunkIndex);                         // 片段序号
-        metadata.put("id", knowledgeType + "_doc_" + chunkIndex);  // 唯一标识
+        metadata.put("chunk", chunk.section());                    // 片段序号（章节序号）
+        // 唯一标识：来源键 + 章节序号，章节被拆分时追加子片段序号
+        metadata.put("id", chunk.split()
+                ? sourceKey + "#" + chunk.section() + "_" + chunk.part()
+                : sourceKey + "#" + chunk.section());
         
         // 内容特征元数据
         metadata.put("length", content.length());                 // 内容长度
+        metadata.put("chunkSize", chunk.size());                  // 片段大小（单位见 chunkUnit）
+        metadata.put("chunkUnit", chunker.measure().unit());      // 分割配置
+        metadata.put("chunkTargetSize", chunker.targetSize());
+        metadata.put("chunkMaxSize", chunker.maxSize());
+        metadata.put("chunkOverlap", chunker.overlap());
+        metadata.put("startOffset", chunk.startOffset());         // 原文起始偏移
+        metadata.put("endOffset", chunk.endOffset());             // 原文结束偏移
         metadata.put("timestamp", System.currentTimeMillis());    // 创建时间
         
-        // 提取标题信息
-        String title = extractTitle(content);
-        if (title != null) {
-            metadata.put("title", title);
+        // 标题信息（分割时已识别）
+        if (chunk.title() != null) {
+            metadata.put("title", chunk.title());
+        }
+        if (chunk.parentTitle() != null) {
+            metadata.put("parentTitle", chunk.parentTitle());
         }
         
+        // 评分特征：只与文档有关的部分在建索引时一次算好，查询时直接读取
+        KeywordAutomaton.Hits hits = KEYWORDS.scan(content);
+        metadata.put("featureVersion", FEATURE_VERSION);
+        metadata.put("staticScore", staticScore(hits, content.length()));   // 与查询无关的得分
+        metadata.put("keywordMask", hits.mask(QUERY_KEYWORD));              // 出现的评分关键词
+
         // 内容类型判断
         if (content.contains("Q:") || content.contains("问:")) {
             metadata.put("contentType", "FAQ");  // 问答类型
@@ -358,41 +812,6 @@ public class KnowledgeBaseService {
         }
     }
 
-    /**
-     * 从文档内容中提取标题
-     * 
-     * 标题提取规则：
-     * 1. 优先提取Markdown格式标题（#、##、###）
-     * 2. 提取第一行作为标题（如果符合标题特征）
-     * 3. 清理标题格式，去除标记符号
-     * 
-     * @param content 文档内容
-     * @return 提取的标题，如果没有则返回null
-     */
-    private String extractTitle(String content) {
-        if (content == null || content.trim().isEmpty()) {
-            return null;
-        }
-        
-        String[] lines = content.split("\n");
-        for (String line : lines) {
-            line = line.trim();
-            
-            // 检查Markdown标题格式
-            if (line.startsWith("#")) {
-                // 移除#符号和多余空格，返回纯标题文本
-                return line.replaceAll("^#+\\s*", "").trim();
-            }
-            
-            // 检查是否为标题行（短且不包含句号）
-            if (line.length() > 0 && line.length() < 100 && !line.contains("。") && !line.contains(".")) {
-                return line;
-            }
-        }
-        
-        return null;
-    }
-
     /**
      * 搜索医学知识库
      * 
@@ -429,21 +848,29 @@ public class KnowledgeBaseService {
 
             // 第二步：执行向量相似度搜索
             // 使用嵌入模型将查询转换为向量，然后在向量空间中搜索相似文档
-            List<Document> docs = vectorStore.similaritySearch(query);
+            // 低于相似度阈值的片段由向量存储直接丢弃，不再进入后续评分
+            List<Document> docs = vectorStore.similaritySearch(SearchRequest.builder()
+                    .query(query)
+                    .topK(5)
+                    .similarityThreshold(vectorStoreProperties.getSimilarityThreshold())
+                    .build());
 
             // 第三步：相关性过滤和排序
-            // 使用自定义评分算法进一步筛选结果
+            // 使用自定义评分算法进一步筛选结果；查询只扫描一次，每个文档只评分一次
+            long queryMask = KEYWORDS.scan(query).mask(QUERY_KEYWORD);
+            String queryLower = query.toLowerCase();
+            Map<Document, Double> scores = new IdentityHashMap<>();
+            for (Document doc : docs) {
+                double score = calculateRelevanceScore(doc, queryMask, queryLower);
+                logger.debug("文档相关性得分: {} - {}", score,
+                    doc.getText().substring(0, Math.min(50, doc.getText().length())));
+                if (score > 30.0) { // 相关性阈值：30分
+                    scores.put(doc, score);
+                }
+            }
             List<Document> relevantDocs = docs.stream()
-                .filter(doc -> {
-                    double score = calculateRelevanceScore(doc, query);
-                    logger.debug("文档相关性得分: {} - {}", score, 
-                        doc.getText().substring(0, Math.min(50, doc.getText().length())));
-                    return score > 30.0; // 相关性阈值：30分
-                })
-                .sorted((a, b) -> Double.compare(
-                    calculateRelevanceScore(b, query),  // 降序排列
-                    calculateRelevanceScore(a, query)
-                ))
+                .filter(scores::containsKey)
+                .sorted((a, b) -> Double.compare(scores.get(b), scores.get(a)))  // 降序排列
                 .limit(5)  // 限制返回最多5个结果
                 .collect(Collectors.toList());
 
@@ -453,7 +880,7 @@ public class KnowledgeBaseService {
                 Map<String, Object> docResult = new HashMap<>();
                 docResult.put("content", doc.getText());
                 docResult.put("metadata", doc.getMetadata());
-                docResult.put("score", calculateRelevanceScore(doc, query));
+                docResult.put("score", scores.get(doc));
                 resultList.add(docResult);
             }
 
@@ -494,34 +921,8 @@ public class KnowledgeBaseService {
             return false;
         }
         
-        String queryLower = query.toLowerCase();
-        
-        // 定义医学相关关键词列表
-        String[] medicalKeywords = {
-            // 体检指标
-            "白细胞", "血压", "血糖", "胆固醇", "肝功能", "肾功能", "心电图",
-            "中性粒细胞", "淋巴细胞", "血红蛋白", "血小板", "尿酸", "甘油三酯",
-            
-            // 疾病名称
-            "高血压", "糖尿病", "肝炎", "心脏病", "冠心病", "脂肪肝", "肾病",
-            "贫血", "感染", "炎症", "肿瘤", "癌症",
-            
-            // 症状和体征
-            "发热", "疼痛", "咳嗽", "胸闷", "头晕", "乏力", "水肿", "黄疸",
-            
-            // 医学术语
-            "诊断", "治疗", "药物", "检查", "化验", "体检", "健康", "医学",
-            "临床", "病理", "生理", "解剖", "免疫", "代谢"
-        };
-        
-        // 检查是否包含医学关键词
-        for (String keyword : medicalKeywords) {
-            if (queryLower.contains(keyword.toLowerCase())) {
-                return true;
-            }
-        }
-        
-        return false;
+        // 检查是否包含医学关键词（见 KEYWORDS 中的 MEDICAL_KEYWORD 类别），遇到第一个即返回
+        return KEYWORDS.containsAny(query, MEDICAL_KEYWORD);
     }
 
     /**
@@ -540,66 +941,74 @@ public class KnowledgeBaseService {
      * - 标题匹配：50分
      * - 内容长度适中：20分
      * 
+     * 只与文档有关的部分（格式、参考值、长度、术语密度）及文档中出现的评分关键词
+     * 在建索引时由 createMetadata 算好存入元数据（staticScore、keywordMask），
+     * 查询时只需与查询的关键词掩码按位与，再检查标题；
+     * 缺少特征或特征版本不符的文档（例如旧版本持久化的数据）回退为扫描文档内容。
+     * 
      * @param doc 文档对象
-     * @param query 查询字符串
+     * @param queryMask 查询中出现的评分关键词掩码
+     * @param queryLower 小写的查询字符串
      * @return 相关性得分（0-500分）
      */
-    private double calculateRelevanceScore(Document doc, String query) {
-        String content = doc.getText().toLowerCase();
-        String queryLower = query.toLowerCase();
-        double score = 0.0;
+    private double calculateRelevanceScore(Document doc, long queryMask, String queryLower) {
+        Map<String, Object> metadata = doc.getMetadata();
+        double score;
+        long keywordMask;
+        if (metadata.get("featureVersion") instanceof Number version && version.intValue() == FEATURE_VERSION
+                && metadata.get("staticScore") instanceof Number staticScore
+                && metadata.get("keywordMask") instanceof Number mask) {
+            score = staticScore.doubleValue();
+            keywordMask = mask.longValue();
+        } else {
+            KeywordAutomaton.Hits hits = KEYWORDS.scan(doc.getText());
+            score = staticScore(hits, doc.getText().length());
+            keywordMask = hits.mask(QUERY_KEYWORD);
+        }
 
-        // 1. 精确关键词匹配（最高权重）
-        String[] queryKeywords = {
-            "血压", "测量", "时间", "黄金时间", "白细胞", "升高", 
-            "心电图", "异常", "心脏病", "胆固醇", "肝功能", "血糖"
-        };
-        
-        for (String keyword : queryKeywords) {
-            if (queryLower.contains(keyword.toLowerCase()) && 
-                content.contains(keyword.toLowerCase())) {
-                score += 100.0; // 关键词匹配得高分
-            }
+        // 1. 精确关键词匹配（最高权重）：查询和文档中都出现的关键词
+        score += Long.bitCount(queryMask & keywordMask) * 100.0; // 关键词匹配得高分
+
+        // 4. 标题相关性
+        String title = (String) metadata.get("title");
+        if (title != null && queryLower.contains(title.toLowerCase())) {
+            score += 50.0;
         }
 
+        return score;
+    }
+
+    /**
+     * 与查询无关的文档得分，对应评分规则中的第2、3、5、6项
+     * 
+     * @param hits 文档内容的关键词扫描结果
+     * @param contentLength 内容长度
+     * @return 得分
+     */
+    private static int staticScore(KeywordAutomaton.Hits hits, int contentLength) {
+        int score = 0;
+
         // 2. 文档格式类型加分
-        if (content.contains("q:") || content.contains("问:") || 
-            content.contains("q1:") || content.contains("q2:")) {
-            score += 80.0; // FAQ格式文档
+        if (hits.any(FAQ_QUESTION)) {
+            score += 80; // FAQ格式文档
         }
 
-        if (content.contains("a:") || content.contains("答:")) {
-            score += 80.0; // 包含答案的文档
+        if (hits.any(FAQ_ANSWER)) {
+            score += 80; // 包含答案的文档
         }
 
         // 3. 参考值和标准信息加分
-        if (content.contains("正常参考值") || content.contains("正常范围") || 
-            content.contains("参考范围")) {
-            score += 60.0;
-        }
-
-        // 4. 标题相关性
-        Map<String, Object> metadata = doc.getMetadata();
-        String title = (String) metadata.get("title");
-        if (title != null && queryLower.contains(title.toLowerCase())) {
-            score += 50.0;
+        if (hits.any(REFERENCE_RANGE)) {
+            score += 60;
         }
 
         // 5. 内容长度适中性
-        int contentLength = content.length();
         if (contentLength >= 100 && contentLength <= 800) {
-            score += 20.0; // 长度适中的文档更有价值
+            score += 20; // 长度适中的文档更有价值
         }
 
         // 6. 专业术语密度
-        String[] medicalTerms = {"升高", "降低", "异常", "正常", "建议", "注意", "可能"};
-        int termCount = 0;
-        for (String term : medicalTerms) {
-            if (content.contains(term)) {
-                termCount++;
-            }
-        }
-        score += termCount * 10.0; // 每个专业术语加10分
+        score += hits.count(MEDICAL_TERM) * 10; // 每个专业术语加10分
 
         return score;
     }
@@ -612,26 +1021,31 @@ public class KnowledgeBaseService {
      * 2. 生产环境的知识库更新
      * 3. 故障恢复和重置
      * 
-     * 注意：这个操作会清空现有的向量存储，请谨慎使用
+     * 重新加载是幂等的：逐片段比对内容哈希，只新增、更新或删除有差异的片段，
+     * 内容没有变化时不会产生重复文档，也不会调用嵌入模型。
+     * 重新加载期间导入状态为 LOADING，结束后按失败的文件更新为 READY / PARTIAL / FAILED。
      * 
-     * @return 操作结果信息
+     * @return 操作结果信息，包含 message 以及 added、updated、deleted、unchanged、failed 片段数
      */
-    public String reloadKnowledgeBase() {
+    public Map<String, Object> reloadKnowledgeBase() {
+        Map<String, Object> result = new LinkedHashMap<>();
         try {
             logger.info("开始重新加载知识库...");
             
-            // 注意：这里假设向量存储支持清空操作
-            // 实际实现可能需要根据具体的向量存储类型调整
-            
-            // 重新初始化知识库
-            initializeKnowledgeBase();
+            ChunkDiff diff = syncAllKnowledgeFiles();
             
-            return "知识库重新加载成功";
+            result.put("message", ingestionState == IngestionState.READY
+                    ? "知识库重新加载成功" : "知识库重新加载完成，部分文件失败");
+            result.putAll(diff.toMap());
+            if (!failedSources.isEmpty()) {
+                result.put("failedFiles", new TreeMap<>(failedSources));
+            }
             
         } catch (Exception e) {
             logger.error("重新加载知识库失败", e);
-            return "知识库重新加载失败: " + e.getMessage();
+            result.put("message", "知识库重新加载失败: " + e.getMessage());
         }
+        return result;
     }
 
     /**
@@ -643,6 +1057,10 @@ public class KnowledgeBaseService {
         stats.put("files", List.of(KNOWLEDGE_BASE_FILES));
         stats.put("types", List.of("心血管疾病", "糖尿病", "肝功能"));
         stats.put("vectorStoreEnabled", vectorStore != null);
+        stats.put("ingestion", getIngestionStatus());
+        if (vectorStore instanceof VectorStoreConfig.SimpleInMemoryVectorStore store) {
+            stats.put("index", store.getIndexStats());
+        }
         return stats;
     }
 }
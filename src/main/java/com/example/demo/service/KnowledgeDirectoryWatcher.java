@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.config.KnowledgeProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识目录监听器
+ * 
+ * 通过 WatchService 监听 knowledge.directory 配置的目录（不递归），目录下的 .txt / .md 文件
+ * 新增、修改或删除后，在后台线程中只重新导入（或移除）该文件，不影响正在进行的检索。
+ * 
+ * 编辑器保存一个文件通常会连续产生多个事件，因此每个文件的变化先经过防抖：
+ * 在 debounceMillis 窗口内的后续事件会取消并重新安排该文件的导入任务，窗口结束后只执行一次。
+ * 导入任务在单线程调度器上串行执行，与手动重新加载一样通过 KnowledgeBaseService 的片段差异同步。
+ * 
+ * 监听在知识库首次导入结束（{@link KnowledgeBaseLoadedEvent}）后才开始，目录中已有文件的导入不与首次导入竞争，
+ * 每个文件的同步结果计入知识库的导入状态。
+ */
+@Component
+public class KnowledgeDirectoryWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeDirectoryWatcher.class);
+
+    @Autowired
+    private KnowledgeBaseService knowledgeBaseService;
+
+    @Autowired
+    private KnowledgeProperties knowledgeProperties;
+
+    private final Map<Path, ScheduledFuture<?>> pending = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    private WatchService watchService;
+    private Thread watchThread;
+    private Path directory;
+
+    @EventListener(KnowledgeBaseLoadedEvent.class)
+    public synchronized void start() {
+        if (watchService != null) return;
+        String configured = knowledgeProperties.getDirectory();
+        if (configured == null || configured.isBlank()) {
+            logger.info("未配置知识目录，跳过目录监听");
+            return;
+        }
+        directory = Paths.get(configured).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(directory);
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.error("无法监听知识目录 {}: {}", directory, e.getMessage());
+            directory = null;
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "knowledge-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 目录中已有的文件在后台导入一次
+        scheduler.execute(this::scanDirectory);
+
+        watchThread = new Thread(this::watchLoop, "knowledge-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("开始监听知识目录: {}", directory);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("关闭目录监听失败: {}", e.getMessage());
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 当前监听的目录，未启用时返回null
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // 事件丢失，重新扫描整个目录
+                    scheduler.execute(this::scanDirectory);
+                    continue;
+                }
+                Path file = directory.resolve((Path) event.context());
+                if (isKnowledgeFile(file)) {
+                    schedule(file);
+                }
+            }
+            if (!key.reset()) {
+                logger.warn("知识目录 {} 已不可访问，停止监听", directory);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 防抖：取消该文件尚未执行的导入任务，重新计时
+     */
+    private synchronized void schedule(Path file) {
+        ScheduledFuture<?> previous = pending.get(file);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        pending.put(file, scheduler.schedule(() -> ingest(file),
+                knowledgeProperties.getDebounceMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private void ingest(Path file) {
+        synchronized (this) {
+            pending.remove(file);
+        }
+        String fileName = file.getFileName().toString();
+        try {
+            if (Files.isRegularFile(file)) {
+                Map<String, Object> diff = knowledgeBaseService.syncKnowledgeFile(file);
+                logger.info("知识文件 {} 已同步: {}", fileName, diff);
+            } else {
+                knowledgeBaseService.removeKnowledgeSource(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("同步知识文件 {} 失败", fileName, e);
+        }
+    }
+
+    private void scanDirectory() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (isKnowledgeFile(file) && Files.isRegularFile(file)) {
+                    ingest(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("扫描知识目录 {} 失败: {}", directory, e.getMessage());
+        }
+    }
+
+    private static boolean isKnowledgeFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".txt") || name.endsWith(".md");
+    }
+}
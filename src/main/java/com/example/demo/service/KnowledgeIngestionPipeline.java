@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 分阶段的知识导入流水线
+ * 
+ * 各阶段（读取、分割、批量嵌入、写入）按添加顺序串联，相邻阶段之间用容量为 queueCapacity 的有界队列连接，
+ * 每个阶段由 parallelism 个线程并行处理。一个文件在嵌入阶段等待远程模型时，
+ * 其他文件的读取和分割同时进行，总耗时由最慢的阶段（通常是嵌入）决定，而不是各步骤耗时之和；
+ * 下游处理不过来时有界队列让上游阻塞，内存中积压的中间结果不会无限增长。
+ * 
+ * 某个元素在某一阶段抛出异常时只记录日志并丢弃该元素，不影响其他元素；阶段返回null同样表示丢弃。
+ * 需要按元素统计失败时通过 {@link #onFailure} 注册回调，回调在出错的阶段线程中调用。
+ * 一对多阶段（例如边读边分割的文件）每输出一个元素就交给下游，下游队列已满时输出阻塞，处理随之暂停。
+ */
+final class KnowledgeIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeIngestionPipeline.class);
+
+    // 结束标记，沿队列逐级传递
+    private static final Object END = new Object();
+
+    /**
+     * 流水线中的一个处理步骤
+     */
+    @FunctionalInterface
+    interface Stage<I, O> {
+        O process(I input) throws Exception;
+    }
+
+    /**
+     * 一个输入产生任意多个输出的处理步骤，输出通过 out 逐个交给下游
+     */
+    @FunctionalInterface
+    interface FanOutStage<I, O> {
+        void process(I input, Consumer<O> out) throws Exception;
+    }
+
+    private record StageDefinition(String name, int parallelism, FanOutStage<Object, Object> stage) {
+    }
+
+    private final int queueCapacity;
+    private final List<StageDefinition> stages = new ArrayList<>();
+    private BiConsumer<Object, Exception> failureHandler = (item, e) -> { };
+
+    KnowledgeIngestionPipeline(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * 追加一个阶段，输入为上一阶段的输出
+     */
+    <I, O> KnowledgeIngestionPipeline stage(String name, int parallelism, Stage<I, O> stage) {
+        return fanOutStage(name, parallelism, (I input, Consumer<O> out) -> {
+            O result = stage.process(input);
+            if (result != null) {
+                out.accept(result);
+            }
+        });
+    }
+
+    /**
+     * 追加一个一对多阶段，输入为上一阶段的输出
+     */
+    @SuppressWarnings("unchecked")
+    <I, O> KnowledgeIngestionPipeline fanOutStage(String name, int parallelism, FanOutStage<I, O> stage) {
+        stages.add(new StageDefinition(name, Math.max(1, parallelism), (FanOutStage<Object, Object>) stage));
+        return this;
+    }
+
+    /**
+     * 注册元素处理失败的回调，参数为出错阶段的输入元素和异常
+     */
+    KnowledgeIngestionPipeline onFailure(BiConsumer<Object, Exception> handler) {
+        this.failureHandler = handler;
+        return this;
+    }
+
+    /**
+     * 把输入依次送入流水线，阻塞到全部元素处理完成
+     */
+    void run(List<?> inputs) throws InterruptedException {
+        List<BlockingQueue<Object>> queues = new ArrayList<>(stages.size());
+        int workers = 0;
+        for (StageDefinition definition : stages) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+            workers += definition.parallelism();
+        }
+
+        CountDownLatch finished = new CountDownLatch(workers);
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int s = 0; s < stages.size(); s++) {
+            StageDefinition definition = stages.get(s);
+            BlockingQueue<Object> input = queues.get(s);
+            BlockingQueue<Object> output = s + 1 < stages.size() ? queues.get(s + 1) : null;
+            AtomicInteger running = new AtomicInteger(definition.parallelism());
+            for (int i = 1; i <= definition.parallelism(); i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        work(definition, input, output, running);
+                    } finally {
+                        finished.countDown();
+                    }
+                }, "knowledge-" + definition.name() + "-" + i);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+        }
+
+        try {
+            BlockingQueue<Object> head = queues.get(0);
+            for (Object input : inputs) {
+                head.put(input);
+            }
+            head.put(END);
+            finished.await();
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        }
+    }
+
+    private void work(StageDefinition definition, BlockingQueue<Object> input, BlockingQueue<Object> output,
+                             AtomicInteger running) {
+        Consumer<Object> emitter = result -> {
+            if (output == null) return;
+            try {
+                output.put(result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("导入流水线已中断");
+            }
+        };
+        try {
+            while (true) {
+                Object item = input.take();
+                if (item == END) {
+                    // 放回结束标记，让同阶段的其他线程也能退出；最后一个退出的线程通知下游
+                    input.put(END);
+                    if (running.decrementAndGet() == 0 && output != null) {
+                        output.put(END);
+                    }
+                    return;
+                }
+                try {
+                    definition.stage().process(item, emitter);
+                } catch (InterruptedException | CancellationException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    logger.error("导入流水线阶段 {} 处理失败: {}", definition.name(), item, e);
+                    failureHandler.accept(item, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.vectorstore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二值（符号位）草图索引
+ *
+ * 每个维度只保留符号位，1024维向量压缩为16个long。第一阶段用异或 + Long.bitCount
+ * 计算汉明距离，以极低的代价筛选出 candidates 个候选；第二阶段用原始浮点向量精确重排。
+ * 对已归一化的向量，符号位一致的比例与夹角近似线性相关，适合作为廉价的预过滤。
+ */
+public class BinaryIndex implements VectorIndex {
+
+    private final int candidates;
+
+    private int words;
+    private long[] sketches;
+    private int rows;
+
+    public BinaryIndex(int candidates) {
+        this.candidates = Math.max(1, candidates);
+    }
+
+    @Override
+    public void build(FloatMatrix matrix) {
+        rows = 0;
+        sketches = null;
+        if (matrix == null) return;
+        words = (matrix.dimension() + 63) >>> 6;
+        sketches = new long[Math.max(1, matrix.rows()) * words];
+        encode(matrix);
+    }
+
+    @Override
+    public void search(FloatMatrix matrix, float[] query, BitSet accept, TopKCollector collector) {
+        if (sketches == null) return;
+
+        long[] querySketch = new long[words];
+        sketch(query, 0, query.length, querySketch, 0);
+
+        // 得分为符号位一致的维度数，越大越相似
+        int totalBits = words * 64;
+        TopKCollector shortlist = new TopKCollector(Math.max(candidates, collector.capacity()));
+        for (int row = VectorIndex.firstRow(accept); row >= 0 && row < rows; row = VectorIndex.nextRow(accept, row)) {
+            int offset = row * words;
+            int distance = 0;
+            for (int w = 0; w < words; w++) {
+                distance += Long.bitCount(sketches[offset + w] ^ querySketch[w]);
+            }
+            shortlist.offer(row, totalBits - distance);
+        }
+
+        for (int row : shortlist.drainIds()) {
+            collector.offer(row, matrix.dot(row, query));
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("index", "binary");
+        stats.put("candidates", candidates);
+        stats.put("sketchBytes", (long) rows * words * Long.BYTES);
+        return stats;
+    }
+
+    private void encode(FloatMatrix matrix) {
+        int dimension = matrix.dimension();
+        float[] data = matrix.data();
+        for (int row = 0; row < matrix.rows(); row++) {
+            sketch(data, row * dimension, dimension, sketches, row * words);
+        }
+        rows = matrix.rows();
+    }
+
+    private static void sketch(float[] vector, int offset, int dimension, long[] out, int outOffset) {
+        Arrays.fill(out, outOffset, outOffset + ((dimension + 63) >>> 6), 0L);
+        for (int d = 0; d < dimension; d++) {
+            if (vector[offset + d] > 0f) {
+                out[outOffset + (d >>> 6)] |= 1L << (d & 63);
+            }
+        }
+    }
+}
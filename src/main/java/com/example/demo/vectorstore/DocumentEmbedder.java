@@ -0,0 +1,138 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 向量存储使用的嵌入入口
+ *
+ * 文档内容优先从嵌入缓存读取，只有新增或变化的文本才调用远程嵌入模型；
+ * 未命中的文本按 batchSize 分批调用列表形式的嵌入接口，最多 concurrency 个批次并发，
+ * 单个批次失败时按退避间隔重试 maxAttempts 次。
+ * 查询文本每次都不同，直接调用模型，不写入缓存。
+ */
+public class DocumentEmbedder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentEmbedder.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingCache cache;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final ExecutorService executor;
+
+    /**
+     * @param cache 嵌入缓存，为null时不缓存
+     */
+    public DocumentEmbedder(EmbeddingModel embeddingModel, EmbeddingCache cache) {
+        this(embeddingModel, cache, 16, 1, 3, 500);
+    }
+
+    public DocumentEmbedder(EmbeddingModel embeddingModel, EmbeddingCache cache, int batchSize,
+                            int concurrency, int maxAttempts, long retryBackoffMillis) {
+        this.embeddingModel = embeddingModel;
+        this.cache = cache;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 批量计算文档内容的嵌入向量
+     *
+     * @return 与输入顺序一致的向量列表，重试后仍失败的批次对应位置为null
+     */
+    public List<float[]> embedDocuments(List<String> contents) {
+        List<float[]> results = new ArrayList<>(contents.size());
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            float[] cached = cache != null ? cache.get(contents.get(i)) : null;
+            results.add(cached);
+            if (cached == null) {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int start = 0; start < missing.size(); start += batchSize) {
+            List<Integer> batch = missing.subList(start, Math.min(start + batchSize, missing.size()));
+            batches.add(CompletableFuture.runAsync(() -> embedBatch(contents, batch, results), executor));
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+
+        logger.debug("嵌入 {} 段文本：缓存命中 {}，调用模型 {} 批",
+                contents.size(), contents.size() - missing.size(), batches.size());
+        return results;
+    }
+
+    /**
+     * 计算查询文本的嵌入向量
+     */
+    public float[] embedQuery(String query) {
+        return embeddingModel.embed(query);
+    }
+
+    /**
+     * 关闭批量嵌入线程池，由Spring在容器关闭时调用
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void embedBatch(List<String> contents, List<Integer> batch, List<float[]> results) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (int index : batch) {
+            texts.add(contents.get(index));
+        }
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                List<float[]> embeddings = embeddingModel.embed(texts);
+                if (embeddings.size() != texts.size()) {
+                    throw new IllegalStateException("嵌入结果数量 " + embeddings.size() + " 与请求数量 " + texts.size() + " 不一致");
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    // 每个批次写入互不重叠的下标
+                    synchronized (results) {
+                        results.set(batch.get(i), embeddings.get(i));
+                    }
+                    if (cache != null) {
+                        cache.put(texts.get(i), embeddings.get(i));
+                    }
+                }
+                return;
+            } catch (Exception e) {
+                if (attempt == maxAttempts) {
+                    logger.warn("嵌入批次失败（{} 段文本，已重试 {} 次）: {}", texts.size(), attempt, e.getMessage());
+                    return;
+                }
+                logger.debug("嵌入批次第 {} 次失败，稍后重试: {}", attempt, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMillis * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
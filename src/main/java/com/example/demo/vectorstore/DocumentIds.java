@@ -0,0 +1,20 @@
+package com.example.demo.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * 文档主键
+ *
+ * 知识库文档在元数据 "id" 中携带业务主键，删除和覆盖写入都以它为准；
+ * 没有业务主键时使用 Document 自身的ID。
+ */
+public final class DocumentIds {
+
+    private DocumentIds() {
+    }
+
+    public static String of(Document document) {
+        Object id = document.getMetadata().get("id");
+        return id != null ? id.toString() : document.getId();
+    }
+}
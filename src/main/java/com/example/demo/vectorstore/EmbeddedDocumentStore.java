@@ -0,0 +1,22 @@
+package com.example.demo.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * 可直接写入已嵌入文档的向量存储
+ *
+ * 导入流水线在独立阶段中批量计算嵌入向量，写入阶段通过该接口把文档和向量一起交给存储，
+ * 存储不再重复调用嵌入模型。
+ */
+public interface EmbeddedDocumentStore {
+
+    /**
+     * 写入文档及其嵌入向量，主键已存在时覆盖旧文档
+     *
+     * @param embeddings 与 documents 一一对应，为null的向量对应的文档被跳过
+     * @return 实际写入的文档主键（见 {@link DocumentIds}），被跳过的文档不在其中
+     */
+    List<String> addEmbedded(List<Document> documents, List<float[]> embeddings);
+}
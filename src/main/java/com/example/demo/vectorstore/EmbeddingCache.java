@@ -0,0 +1,194 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 持久化的嵌入向量缓存
+ *
+ * 以"模型名 + 文本内容"的SHA-256为键，缓存文本的嵌入向量。数据保存在追加写日志中，
+ * 每条记录为：[键长度 int][键 UTF-8字节][维度 int][float × 维度]（小端序）。
+ * 启动时映射日志文件重建内存索引；末尾不完整的记录（如写入时进程被杀）会被截断丢弃。
+ *
+ * 内存中最多保留 maxEntries 条，超出时淘汰最久未使用的条目（LRU）。
+ * 日志中的记录数超过保留条数的两倍时（被淘汰的旧版本片段、重复写入），
+ * 把保留的条目按从旧到新的顺序重写为新日志并原子替换；启动时日志中有多余记录也会立即重写。
+ *
+ * 更换嵌入模型后键自然失效，不会误用旧模型的向量。
+ */
+public class EmbeddingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    private final String modelName;
+    private final Path file;
+    private final int maxEntries;
+    // 按访问顺序排列的LRU表，所有访问都在 this 上同步
+    private final LinkedHashMap<String, float[]> entries;
+    private FileChannel channel;
+    // 日志文件中的记录数，包括已被淘汰或重复的记录
+    private long logRecords;
+
+    public EmbeddingCache(String modelName, Path file) {
+        this(modelName, file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxEntries 内存中保留的最大条目数
+     */
+    public EmbeddingCache(String modelName, Path file, int maxEntries) {
+        this.modelName = modelName;
+        this.file = file;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > EmbeddingCache.this.maxEntries;
+            }
+        };
+        load();
+    }
+
+    /**
+     * 查询缓存，未命中返回null
+     */
+    public float[] get(String text) {
+        String key = key(text);
+        synchronized (this) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * 写入缓存并追加到日志文件，日志中的多余记录过多时重写日志
+     */
+    public void put(String text, float[] embedding) {
+        String key = key(text);
+        synchronized (this) {
+            if (entries.containsKey(key)) return;
+            entries.put(key, embedding);
+            if (channel == null) return;
+            try {
+                writeRecord(channel, key, embedding);
+                logRecords++;
+                if (logRecords > 2L * Math.max(entries.size(), 1024)) {
+                    rewrite();
+                }
+            } catch (IOException e) {
+                logger.warn("写入嵌入缓存失败: {}", e.getMessage());
+                if (!channel.isOpen()) {
+                    // 重写日志失败，之后只在内存中缓存
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private String key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private synchronized void load() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+
+            long size = channel.size();
+            long valid = 0;
+            if (size > 0) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                while (mapped.remaining() >= 4) {
+                    int keyLength = mapped.getInt();
+                    if (keyLength <= 0 || mapped.remaining() < keyLength + 4) break;
+                    byte[] keyBytes = new byte[keyLength];
+                    mapped.get(keyBytes);
+                    int dimension = mapped.getInt();
+                    if (dimension <= 0 || mapped.remaining() < (long) dimension * Float.BYTES) break;
+                    float[] embedding = new float[dimension];
+                    mapped.asFloatBuffer().get(embedding);
+                    mapped.position(mapped.position() + dimension * Float.BYTES);
+                    entries.put(new String(keyBytes, StandardCharsets.UTF_8), embedding);
+                    logRecords++;
+                    valid = mapped.position();
+                }
+            }
+            if (valid < size) {
+                logger.warn("嵌入缓存文件末尾有 {} 字节不完整记录，已截断", size - valid);
+                channel.truncate(valid);
+            }
+            channel.position(valid);
+            logger.info("嵌入缓存已加载: {} 条, 模型 {}, 文件 {}", entries.size(), modelName, file);
+            if (logRecords > entries.size()) {
+                rewrite();
+            }
+        } catch (IOException e) {
+            logger.warn("嵌入缓存不可用，将直接调用嵌入模型: {}", e.getMessage());
+            channel = null;
+        }
+    }
+
+    /**
+     * 只把当前保留的条目按从旧到新的顺序写入临时文件，再原子替换日志文件，调用方需持有 this 的锁
+     */
+    private void rewrite() throws IOException {
+        long before = logRecords;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<String, float[]> entry : entries.entrySet()) {
+                writeRecord(out, entry.getKey(), entry.getValue());
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        logRecords = entries.size();
+        logger.info("嵌入缓存日志已重写: {} 条记录 -> {} 条", before, logRecords);
+    }
+
+    private static void writeRecord(FileChannel target, String key, float[] embedding) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(8 + keyBytes.length + embedding.length * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(keyBytes.length).put(keyBytes).putInt(embedding.length);
+        record.asFloatBuffer().put(embedding);
+        record.position(record.capacity()).flip();
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.vectorstore;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 暴力扫描索引：逐行计算点积，结果精确
+ *
+ * 配置了分区大小时，行数超过分区大小的矩阵会被递归二分为不超过该大小的行区间，
+ * 在共享的 ForkJoinPool 上并行扫描，每个分区维护自己的局部topK，最后逐级合并；
+ * 行数不超过分区大小时仍在调用线程上单线程扫描，避免小数据量时的任务调度开销。
+ */
+public class FlatIndex implements VectorIndex {
+
+    private final int partitionRows;
+    private final ForkJoinPool pool;
+
+    public FlatIndex() {
+        this(0, null);
+    }
+
+    /**
+     * @param partitionRows 每个分区的最大行数，0表示不分区
+     * @param pool          执行分区扫描的共享线程池
+     */
+    public FlatIndex(int partitionRows, ForkJoinPool pool) {
+        this.partitionRows = Math.max(0, partitionRows);
+        this.pool = pool;
+    }
+
+    @Override
+    public void build(FloatMatrix matrix) {
+        // 无辅助结构
+    }
+
+    @Override
+    public void search(FloatMatrix matrix, float[] query, BitSet accept, TopKCollector collector) {
+        if (partitionRows == 0 || pool == null || matrix.rows() <= partitionRows) {
+            scan(matrix, query, accept, 0, matrix.rows(), collector);
+            return;
+        }
+        collector.merge(pool.invoke(new ScanTask(matrix, query, accept, 0, matrix.rows(), collector.capacity(),
+                collector.threshold())));
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("index", "flat");
+        stats.put("partitionRows", partitionRows);
+        return stats;
+    }
+
+    private static void scan(FloatMatrix matrix, float[] query, BitSet accept, int from, int to,
+                             TopKCollector collector) {
+        if (accept == null) {
+            for (int row = from; row < to; row++) {
+                collector.offer(row, matrix.dot(row, query));
+            }
+            return;
+        }
+        for (int row = accept.nextSetBit(from); row >= 0 && row < to; row = accept.nextSetBit(row + 1)) {
+            collector.offer(row, matrix.dot(row, query));
+        }
+    }
+
+    /**
+     * 扫描 [from, to) 行区间，区间超过分区大小时二分并行
+     */
+    private class ScanTask extends RecursiveTask<TopKCollector> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FloatMatrix matrix;
+        private final float[] query;
+        private final BitSet accept;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final float threshold;
+
+        ScanTask(FloatMatrix matrix, float[] query, BitSet accept, int from, int to, int k, float threshold) {
+            this.matrix = matrix;
+            this.query = query;
+            this.accept = accept;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected TopKCollector compute() {
+            if (to - from <= partitionRows) {
+                TopKCollector local = new TopKCollector(k, threshold);
+                scan(matrix, query, accept, from, to, local);
+                return local;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask right = new ScanTask(matrix, query, accept, mid, to, k, threshold);
+            right.fork();
+            TopKCollector left = new ScanTask(matrix, query, accept, from, mid, k, threshold).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+}
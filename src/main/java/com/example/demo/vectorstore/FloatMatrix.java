@@ -0,0 +1,252 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 连续存储的向量矩阵
+ *
+ * 所有嵌入向量按行主序（row-major）紧凑存放在同一个 float[] 中，
+ * 写入时即做L2归一化，因此余弦相似度退化为一次点积：
+ * 1. 检索时不再需要逐行计算范数
+ * 2. 顺序扫描内存，避免逐个对象的指针跳转
+ * 3. 每个向量只占用 dimension * 4 字节，没有对象头开销
+ *
+ * 点积统一交给 {@link SimilarityKernel} 计算，可用时为SIMD实现。
+ *
+ * 矩阵写满后可以通过 {@link #offHeap()} 转为只读的内存映射副本：向量移出Java堆，
+ * 由操作系统页缓存按需调入，适合只在候选重排时按行读取少量向量的量化索引。
+ */
+public class FloatMatrix {
+
+    private static final Logger logger = LoggerFactory.getLogger(FloatMatrix.class);
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final SimilarityKernel KERNEL = SimilarityKernels.get();
+    // 映射矩阵计算点积时把行复制到线程私有的缓冲区，再交给内核
+    private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[0]);
+
+    private final int dimension;
+    private float[] data;
+    // 内存映射的只读数据，非null时 data 为null
+    private FloatBuffer mapped;
+    private int rows;
+
+    public FloatMatrix(int dimension) {
+        this(dimension, INITIAL_CAPACITY);
+    }
+
+    public FloatMatrix(int dimension, int initialCapacity) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0: " + dimension);
+        }
+        this.dimension = dimension;
+        this.data = new float[dimension * Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * 包装已归一化的行主序数据（例如从持久化文件加载），不再重复归一化
+     */
+    public static FloatMatrix wrap(int dimension, float[] data, int rows) {
+        if ((long) rows * dimension > data.length) {
+            throw new IllegalArgumentException("数据长度不足: " + rows + " 行 × " + dimension + " 维");
+        }
+        FloatMatrix matrix = new FloatMatrix(dimension, 1);
+        matrix.data = data;
+        matrix.rows = rows;
+        return matrix;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * 底层数组，行 i 的数据位于 [i * dimension, (i + 1) * dimension)
+     *
+     * @throws IllegalStateException 矩阵已转为内存映射时
+     */
+    public float[] data() {
+        if (data == null) {
+            throw new IllegalStateException("向量矩阵已转为内存映射，只能按行读取");
+        }
+        return data;
+    }
+
+    /**
+     * 向量是否保存在Java堆上
+     */
+    public boolean onHeap() {
+        return data != null;
+    }
+
+    /**
+     * 把从 fromRow 开始的 count 行复制到 dest[destOffset, ...)，堆内和内存映射矩阵均可使用
+     */
+    public void copyRows(int fromRow, int count, float[] dest, int destOffset) {
+        if (data != null) {
+            System.arraycopy(data, fromRow * dimension, dest, destOffset, count * dimension);
+        } else {
+            mapped.get(fromRow * dimension, dest, destOffset, count * dimension);
+        }
+    }
+
+    /**
+     * 返回内容相同、向量位于Java堆外的只读矩阵
+     *
+     * 向量写入一个临时文件后以只读方式映射，文件随即删除（映射在矩阵被回收前保持有效）。
+     * 超过单个映射上限（2GB）或创建失败时返回原矩阵。
+     */
+    public FloatMatrix offHeap() {
+        if (data == null) return this;
+        long bytes = (long) rows * dimension * Float.BYTES;
+        if (rows == 0 || bytes > Integer.MAX_VALUE) return this;
+        try {
+            Path file = Files.createTempFile("vector-matrix-", ".f32");
+            FloatMatrix matrix = new FloatMatrix(dimension, 1);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FloatBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes)
+                        .order(ByteOrder.nativeOrder()).asFloatBuffer();
+                buffer.put(data, 0, rows * dimension);
+                matrix.mapped = buffer.asReadOnlyBuffer();
+            } finally {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    // 部分平台不允许删除仍被映射的文件
+                    file.toFile().deleteOnExit();
+                }
+            }
+            matrix.data = null;
+            matrix.rows = rows;
+            return matrix;
+        } catch (IOException e) {
+            logger.warn("向量矩阵转为内存映射失败，继续使用堆内存: {}", e.getMessage());
+            return this;
+        }
+    }
+
+    /**
+     * 追加一行，写入前做L2归一化
+     *
+     * @return 新行的行号
+     */
+    public int add(float[] vector) {
+        if (data == null) {
+            throw new IllegalStateException("内存映射的向量矩阵是只读的");
+        }
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配: 期望 " + dimension + "，实际 " + vector.length);
+        }
+        ensureCapacity(rows + 1);
+        int offset = rows * dimension;
+        System.arraycopy(vector, 0, data, offset, dimension);
+        normalizeInPlace(data, offset, dimension);
+        return rows++;
+    }
+
+    /**
+     * 计算第 row 行与（已归一化的）查询向量的点积，即余弦相似度
+     */
+    public float dot(int row, float[] query) {
+        return dot(row, query, 0);
+    }
+
+    /**
+     * 计算第 row 行与 vector[offset, offset + dimension) 的点积
+     */
+    public float dot(int row, float[] vector, int offset) {
+        if (data == null) {
+            return KERNEL.dot(scratchRow(row, 0), 0, vector, offset, dimension);
+        }
+        return KERNEL.dot(data, row * dimension, vector, offset, dimension);
+    }
+
+    /**
+     * 计算矩阵内两行之间的余弦相似度
+     */
+    public float dot(int rowA, int rowB) {
+        if (data == null) {
+            float[] scratch = scratchRow(rowA, 0);
+            copyRows(rowB, 1, scratch, dimension);
+            return KERNEL.dot(scratch, 0, scratch, dimension, dimension);
+        }
+        return KERNEL.dot(data, rowA * dimension, data, rowB * dimension, dimension);
+    }
+
+    /**
+     * 复制出第 row 行
+     */
+    public float[] row(int row) {
+        float[] copy = new float[dimension];
+        copyRows(row, 1, copy, 0);
+        return copy;
+    }
+
+    /**
+     * 当前矩阵实际占用的堆内存（字节），内存映射的矩阵为0
+     */
+    public long memoryBytes() {
+        return data != null ? (long) data.length * Float.BYTES : 0L;
+    }
+
+    /**
+     * 内存映射在Java堆外的向量字节数，堆内矩阵为0
+     */
+    public long mappedBytes() {
+        return mapped != null ? (long) rows * dimension * Float.BYTES : 0L;
+    }
+
+    /**
+     * 把第 row 行复制到线程私有缓冲区的 [offset, offset + dimension)，缓冲区至少可容纳两行
+     */
+    private float[] scratchRow(int row, int offset) {
+        float[] scratch = SCRATCH.get();
+        if (scratch.length < 2 * dimension) {
+            scratch = new float[2 * dimension];
+            SCRATCH.set(scratch);
+        }
+        copyRows(row, 1, scratch, offset);
+        return scratch;
+    }
+
+    private void ensureCapacity(int requiredRows) {
+        if ((long) requiredRows * dimension <= data.length) return;
+        int capacity = Math.max(requiredRows, (data.length / dimension) * 2);
+        data = Arrays.copyOf(data, capacity * dimension);
+    }
+
+    /**
+     * 返回归一化后的新向量，零向量原样返回（相似度恒为0）
+     */
+    public static float[] normalize(float[] vector) {
+        float[] copy = vector.clone();
+        normalizeInPlace(copy, 0, copy.length);
+        return copy;
+    }
+
+    private static void normalizeInPlace(float[] values, int offset, int length) {
+        double norm = 0.0;
+        for (int i = offset; i < offset + length; i++) {
+            norm += (double) values[i] * values[i];
+        }
+        if (norm == 0.0) return;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = offset; i < offset + length; i++) {
+            values[i] *= inv;
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于HNSW（Hierarchical Navigable Small World）图的近似最近邻向量存储
+ *
+ * 与暴力扫描相比，查询只需沿多层近邻图做贪心搜索，访问的节点数约为 O(log N)：
+ * 1. 每个节点随机分配层数，越高层节点越稀疏，作为快速导航的"高速公路"
+ * 2. 插入时逐层找到最近邻并用启发式规则挑选邻居，保证图的连通性
+ * 3. 查询时从顶层入口贪心下降，在第0层用 efSearch 长度的候选队列精细搜索
+ * 4. 删除采用墓碑标记，节点仍参与导航但不会出现在结果中；
+ *    主键到节点的哈希索引使删除为 O(1)，写入已存在的主键时旧节点打墓碑（覆盖写入）；
+ *    墓碑节点占全部节点的比例超过 rebuildDeletedRatio 时，用存活节点重新构建整个图，回收墓碑占用的内存
+ * 5. 第0层的候选中存活且满足过滤条件的节点不足 topK 时，加倍 ef 重新搜索，直到凑满 topK 或遍历完整个图
+ *
+ * 参数说明：
+ * - m: 每层邻居数（第0层为 2m），影响内存与召回率
+ * - efConstruction: 构建时候选队列长度，影响图质量与构建速度
+ * - efSearch: 查询时候选队列长度，影响召回率与查询延迟
+ * - rebuildDeletedRatio: 触发重建的墓碑比例
+ */
+public class HnswVectorStore implements VectorStore, EmbeddedDocumentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private final DocumentEmbedder embedder;
+    private final int m;
+    private final int maxConnections0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final double rebuildDeletedRatio;
+    private final Random random = new Random(42);
+
+    // 写操作（插入、删除）独占，查询共享
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Document> documents = new ArrayList<>();
+    // links.get(node)[level] 为该层的邻居数组，下标0存放邻居数量
+    private final List<int[][]> links = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    // 文档主键 -> 当前存活的节点
+    private final Map<String, Integer> idIndex = new HashMap<>();
+    private FloatMatrix vectors;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswVectorStore(DocumentEmbedder embedder, int m, int efConstruction, int efSearch,
+                           double rebuildDeletedRatio) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW参数m必须不小于2: " + m);
+        }
+        this.embedder = embedder;
+        this.m = m;
+        this.maxConnections0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.rebuildDeletedRatio = rebuildDeletedRatio;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        List<Document> accepted = new ArrayList<>(documents.size());
+        List<String> contents = new ArrayList<>(documents.size());
+        for (Document doc : documents) {
+            String content = doc.getText();
+            if (content != null && !content.trim().isEmpty()) {
+                accepted.add(doc);
+                contents.add(content);
+            }
+        }
+
+        // 远程嵌入调用在锁外批量完成，避免阻塞查询
+        addEmbedded(accepted, embedder.embedDocuments(contents));
+    }
+
+    @Override
+    public List<String> addEmbedded(List<Document> accepted, List<float[]> embeddings) {
+        List<String> written = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            float[] embedding = embeddings.get(i);
+            if (embedding == null) {
+                logger.warn("添加文档失败: 嵌入向量生成失败");
+                continue;
+            }
+            lock.writeLock().lock();
+            try {
+                insert(accepted.get(i), embedding);
+                written.add(DocumentIds.of(accepted.get(i)));
+            } catch (Exception e) {
+                logger.warn("添加文档失败: {}", e.getMessage());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            maybeRebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("HNSW索引中共有 {} 个节点（已删除 {} 个），最高层 {}",
+                this.documents.size(), deleted.cardinality(), maxLevel);
+        return written;
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer node = idIndex.remove(id);
+                if (node != null) {
+                    // 墓碑标记：节点保留在图中继续承担导航作用
+                    deleted.set(node);
+                }
+            }
+            maybeRebuild();
+        } catch (Exception e) {
+            logger.error("删除文档失败", e);
+            throw new RuntimeException("删除文档失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        MetadataFilter filter = MetadataFilter.compile(filterExpression);
+        lock.writeLock().lock();
+        try {
+            for (int node = 0; node < documents.size(); node++) {
+                if (!deleted.get(node) && filter.matches(documents.get(node).getMetadata())) {
+                    deleted.set(node);
+                    idIndex.remove(DocumentIds.of(documents.get(node)));
+                }
+            }
+            maybeRebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        try {
+            int topK = request.getTopK();
+            MetadataFilter filter = request.hasFilterExpression() ?
+                    MetadataFilter.compile(request.getFilterExpression()) : null;
+            float threshold = request.getSimilarityThreshold() > 0 ?
+                    (float) request.getSimilarityThreshold() : Float.NEGATIVE_INFINITY;
+            return search(embedder.embedQuery(request.getQuery()), topK > 0 ? topK : 5, threshold, filter);
+        } catch (Exception e) {
+            logger.error("相似度搜索失败", e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(String query) {
+        try {
+            return search(embedder.embedQuery(query), 5, Float.NEGATIVE_INFINITY, null);
+        } catch (Exception e) {
+            logger.error("相似度搜索失败", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 图遍历不受过滤条件约束，过滤在候选导出时进行。
+     * 候选中跳过墓碑和不满足过滤条件的节点后不足 topK 时，加倍 ef 重新搜索第0层，
+     * 直到凑满 topK、候选得分已低于阈值，或 ef 覆盖全部节点（整个连通图都被遍历）
+     */
+    private List<Document> search(float[] queryEmbedding, int topK, float threshold, MetadataFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                logger.warn("向量存储为空，无法进行相似度搜索");
+                return new ArrayList<>();
+            }
+            if (queryEmbedding.length != vectors.dimension()) {
+                logger.warn("查询向量维度 {} 与存储维度 {} 不一致", queryEmbedding.length, vectors.dimension());
+                return new ArrayList<>();
+            }
+
+            float[] query = FloatMatrix.normalize(queryEmbedding);
+
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedyClosest(query, ep, level);
+            }
+
+            int total = documents.size();
+            int ef = Math.min(Math.max(efSearch, topK), total);
+            while (true) {
+                TopKCollector candidates = searchLayer(query, ep, ef, 0);
+                int[] nodes = new int[candidates.size()];
+                float[] scores = new float[candidates.size()];
+                int count = candidates.drain(nodes, scores);
+
+                // 候选按得分降序，低于阈值后即可停止
+                List<Document> results = new ArrayList<>(topK);
+                boolean belowThreshold = false;
+                for (int i = 0; i < count && results.size() < topK; i++) {
+                    if (scores[i] < threshold) {
+                        belowThreshold = true;
+                        break;
+                    }
+                    int node = nodes[i];
+                    if (deleted.get(node)) continue;
+                    if (filter != null && !filter.matches(documents.get(node).getMetadata())) continue;
+                    results.add(documents.get(node).mutate().score((double) scores[i]).build());
+                }
+                if (results.size() == topK || belowThreshold || ef >= total) {
+                    return results;
+                }
+                ef = (int) Math.min(2L * ef, total);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 墓碑比例超过阈值时用存活节点重新构建图，调用方需持有写锁
+     */
+    private void maybeRebuild() {
+        int total = documents.size();
+        int removed = deleted.cardinality();
+        if (removed == 0 || rebuildDeletedRatio <= 0 || removed < total * rebuildDeletedRatio) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<Document> liveDocuments = new ArrayList<>(total - removed);
+        List<float[]> liveVectors = new ArrayList<>(total - removed);
+        for (int node = deleted.nextClearBit(0); node < total; node = deleted.nextClearBit(node + 1)) {
+            liveDocuments.add(documents.get(node));
+            liveVectors.add(vectors.row(node));
+        }
+
+        documents.clear();
+        links.clear();
+        deleted.clear();
+        idIndex.clear();
+        vectors = null;
+        entryPoint = -1;
+        maxLevel = -1;
+        for (int i = 0; i < liveDocuments.size(); i++) {
+            insert(liveDocuments.get(i), liveVectors.get(i));
+        }
+        logger.info("HNSW图重建完成: 清除 {} 个墓碑节点，剩余 {} 个节点，耗时 {}ms",
+                removed, liveDocuments.size(), System.currentTimeMillis() - start);
+    }
+
+    private void insert(Document doc, float[] embedding) {
+        if (vectors == null) {
+            vectors = new FloatMatrix(embedding.length);
+        }
+        int node = vectors.add(embedding);
+        documents.add(doc);
+        Integer previous = idIndex.put(DocumentIds.of(doc), node);
+        if (previous != null) {
+            deleted.set(previous);
+        }
+        float[] query = vectors.row(node);
+
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[1 + maxConnections(l)];
+        }
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(query, ep, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            TopKCollector found = searchLayer(query, ep, efConstruction, l);
+            int count = found.size();
+            int[] ids = new int[count];
+            float[] scores = new float[count];
+            found.drain(ids, scores);
+
+            int[] selected = selectNeighbors(ids, scores, count, m);
+            int[] own = nodeLinks[l];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+
+            for (int neighbor : selected) {
+                connect(neighbor, node, l);
+            }
+            ep = ids[0];
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 在 neighbor 的第 level 层邻居中加入 node，邻居已满时重新做启发式裁剪
+     */
+    private void connect(int neighbor, int node, int level) {
+        int[] list = links.get(neighbor)[level];
+        int count = list[0];
+        int max = maxConnections(level);
+        if (count < max) {
+            list[++list[0]] = node;
+            return;
+        }
+
+        int[] ids = new int[count + 1];
+        float[] scores = new float[count + 1];
+        for (int i = 0; i < count; i++) {
+            ids[i] = list[i + 1];
+            scores[i] = vectors.dot(neighbor, ids[i]);
+        }
+        ids[count] = node;
+        scores[count] = vectors.dot(neighbor, node);
+        sortDescending(ids, scores);
+
+        int[] selected = selectNeighbors(ids, scores, count + 1, max);
+        list[0] = selected.length;
+        System.arraycopy(selected, 0, list, 1, selected.length);
+    }
+
+    /**
+     * 启发式邻居选择
+     *
+     * 候选按与目标的相似度降序排列。只有当候选与目标的相似度高于它与所有已选邻居的相似度时才选中，
+     * 这样邻居会分散在不同方向上，避免图被局部簇割裂；名额未满时再用被跳过的候选补齐。
+     */
+    private int[] selectNeighbors(int[] ids, float[] scores, int count, int max) {
+        int[] selected = new int[Math.min(max, count)];
+        boolean[] taken = new boolean[count];
+        int n = 0;
+        for (int i = 0; i < count && n < selected.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < n; j++) {
+                if (vectors.dot(ids[i], selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[n++] = ids[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < count && n < selected.length; i++) {
+            if (!taken[i]) {
+                selected[n++] = ids[i];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 在单层上贪心移动到离查询最近的节点
+     */
+    private int greedyClosest(float[] query, int ep, int level) {
+        int current = ep;
+        float best = vectors.dot(current, query);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] list = links.get(current)[level];
+            for (int i = 1; i <= list[0]; i++) {
+                float score = vectors.dot(list[i], query);
+                if (score > best) {
+                    best = score;
+                    current = list[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在单层上做宽度为 ef 的最佳优先搜索，返回最相似的 ef 个节点
+     */
+    private TopKCollector searchLayer(float[] query, int ep, int ef, int level) {
+        BitSet visited = new BitSet(vectors.rows());
+        CandidateQueue candidates = new CandidateQueue(ef);
+        TopKCollector results = new TopKCollector(ef);
+
+        float score = vectors.dot(ep, query);
+        visited.set(ep);
+        candidates.push(ep, score);
+        results.offer(ep, score);
+
+        while (!candidates.isEmpty()) {
+            if (results.isFull() && candidates.peekScore() < results.minScore()) break;
+            int current = candidates.pop();
+
+            int[] list = links.get(current)[level];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbor = list[i];
+                if (visited.get(neighbor)) continue;
+                visited.set(neighbor);
+
+                float neighborScore = vectors.dot(neighbor, query);
+                if (!results.isFull() || neighborScore > results.minScore()) {
+                    candidates.push(neighbor, neighborScore);
+                    results.offer(neighbor, neighborScore);
+                }
+            }
+        }
+        return results;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnections0 : m;
+    }
+
+    private static void sortDescending(int[] ids, float[] scores) {
+        // 邻居数很小（不超过 2m+1），插入排序即可
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            float score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                ids[j + 1] = ids[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * 可增长的最大堆，按相似度从高到低弹出待扩展节点
+     */
+    private static class CandidateQueue {
+        private float[] scores;
+        private int[] ids;
+        private int size;
+
+        CandidateQueue(int initialCapacity) {
+            scores = new float[Math.max(16, initialCapacity)];
+            ids = new int[scores.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        void push(int id, float score) {
+            if (size == scores.length) {
+                scores = Arrays.copyOf(scores, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[parent] >= score) break;
+                scores[index] = scores[parent];
+                ids[index] = ids[parent];
+                index = parent;
+            }
+            scores[index] = score;
+            ids[index] = id;
+        }
+
+        int pop() {
+            int top = ids[0];
+            size--;
+            if (size > 0) {
+                float score = scores[size];
+                int id = ids[size];
+                int index = 0;
+                int half = size >>> 1;
+                while (index < half) {
+                    int child = 2 * index + 1;
+                    int right = child + 1;
+                    if (right < size && scores[right] > scores[child]) {
+                        child = right;
+                    }
+                    if (score >= scores[child]) break;
+                    scores[index] = scores[child];
+                    ids[index] = ids[child];
+                    index = child;
+                }
+                scores[index] = score;
+                ids[index] = id;
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * IVF（倒排文件）粗量化索引
+ *
+ * 构建时用球面k-means把所有向量聚成 nlist 个簇，每个簇维护一个行号倒排列表；
+ * 查询时先与全部质心比较，只扫描最近的 nprobe 个簇，扫描量约为 N * nprobe / nlist。
+ *
+ * 索引随段一起构建；add() 产生的新段合并进主段时会在全部向量上重新训练，
+ * 因此数据分布漂移后质心会随之更新。行数不足以训练时（少于 nlist * 4）退化为暴力扫描。
+ */
+public class IvfIndex implements VectorIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(IvfIndex.class);
+
+    private static final int MIN_POINTS_PER_LIST = 4;
+    private static final int MAX_TRAINING_POINTS_PER_LIST = 256;
+
+    private final int nlist;
+    private final int nprobe;
+    private final int iterations;
+    private final Random random = new Random(42);
+
+    private FloatMatrix centroids;
+    private int[][] lists;
+    private int[] listSizes;
+    private int trainedRows;
+
+    public IvfIndex(int nlist, int nprobe, int iterations) {
+        if (nlist <= 0 || nprobe <= 0) {
+            throw new IllegalArgumentException("IVF参数nlist和nprobe必须大于0");
+        }
+        this.nlist = nlist;
+        this.nprobe = nprobe;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    @Override
+    public void build(FloatMatrix matrix) {
+        centroids = null;
+        lists = null;
+        listSizes = null;
+        trainedRows = 0;
+        if (matrix == null || matrix.rows() < nlist * MIN_POINTS_PER_LIST) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        centroids = train(matrix);
+        int k = centroids.rows();
+        lists = new int[k][];
+        listSizes = new int[k];
+        for (int c = 0; c < k; c++) {
+            lists[c] = new int[Math.max(4, matrix.rows() / k)];
+        }
+        assign(matrix);
+        trainedRows = matrix.rows();
+        logger.info("IVF索引训练完成: {} 行, {} 个簇, 耗时 {}ms", trainedRows, k, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void search(FloatMatrix matrix, float[] query, BitSet accept, TopKCollector collector) {
+        // 过滤后剩余行数不多于探测量时，直接精确扫描允许的行，结果也不会因未探测的簇而缺失
+        if (centroids == null || (accept != null && accept.cardinality() <= (long) trainedRows * nprobe / nlist)) {
+            int rows = matrix.rows();
+            for (int row = VectorIndex.firstRow(accept); row >= 0 && row < rows; row = VectorIndex.nextRow(accept, row)) {
+                collector.offer(row, matrix.dot(row, query));
+            }
+            return;
+        }
+
+        TopKCollector probes = new TopKCollector(Math.min(nprobe, centroids.rows()));
+        for (int c = 0; c < centroids.rows(); c++) {
+            probes.offer(c, centroids.dot(c, query));
+        }
+        for (int c : probes.drainIds()) {
+            int[] list = lists[c];
+            for (int i = 0; i < listSizes[c]; i++) {
+                if (accept != null && !accept.get(list[i])) continue;
+                collector.offer(list[i], matrix.dot(list[i], query));
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("index", "ivf");
+        stats.put("nlist", nlist);
+        stats.put("nprobe", nprobe);
+        stats.put("trained", centroids != null);
+        stats.put("trainedRows", trainedRows);
+        if (listSizes != null) {
+            stats.put("largestList", Arrays.stream(listSizes).max().orElse(0));
+        }
+        return stats;
+    }
+
+    /**
+     * 球面k-means：按点积分配，质心取均值后重新归一化
+     */
+    private FloatMatrix train(FloatMatrix matrix) {
+        int dimension = matrix.dimension();
+        int[] sample = sampleRows(matrix.rows(), nlist * MAX_TRAINING_POINTS_PER_LIST);
+        int k = nlist;
+
+        FloatMatrix current = new FloatMatrix(dimension, k);
+        for (int c = 0; c < k; c++) {
+            current.add(matrix.row(sample[c]));
+        }
+
+        int[] assignment = new int[sample.length];
+        Arrays.fill(assignment, -1);
+        float[] data = matrix.data();
+        for (int iter = 0; iter < iterations; iter++) {
+            boolean changed = false;
+            for (int i = 0; i < sample.length; i++) {
+                int best = nearest(current, matrix, sample[i]);
+                if (best != assignment[i]) {
+                    assignment[i] = best;
+                    changed = true;
+                }
+            }
+            if (!changed) break;
+
+            double[] sums = new double[k * dimension];
+            int[] counts = new int[k];
+            for (int i = 0; i < sample.length; i++) {
+                int c = assignment[i];
+                counts[c]++;
+                int offset = sample[i] * dimension;
+                for (int d = 0; d < dimension; d++) {
+                    sums[c * dimension + d] += data[offset + d];
+                }
+            }
+
+            FloatMatrix next = new FloatMatrix(dimension, k);
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    // 空簇用随机样本重新播种
+                    next.add(matrix.row(sample[random.nextInt(sample.length)]));
+                    continue;
+                }
+                float[] centroid = new float[dimension];
+                for (int d = 0; d < dimension; d++) {
+                    centroid[d] = (float) (sums[c * dimension + d] / counts[c]);
+                }
+                next.add(centroid);
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private void assign(FloatMatrix matrix) {
+        for (int row = 0; row < matrix.rows(); row++) {
+            int c = nearest(centroids, matrix, row);
+            if (listSizes[c] == lists[c].length) {
+                lists[c] = Arrays.copyOf(lists[c], lists[c].length * 2);
+            }
+            lists[c][listSizes[c]++] = row;
+        }
+    }
+
+    private static int nearest(FloatMatrix centroids, FloatMatrix matrix, int row) {
+        float[] data = matrix.data();
+        int offset = row * matrix.dimension();
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < centroids.rows(); c++) {
+            float score = centroids.dot(c, data, offset);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 随机打乱后取前 limit 行作为训练样本，前 nlist 个同时作为初始质心
+     */
+    private int[] sampleRows(int rows, int limit) {
+        int[] all = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            all[i] = i;
+        }
+        for (int i = rows - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = all[i];
+            all[i] = all[j];
+            all[j] = tmp;
+        }
+        return rows > limit ? Arrays.copyOf(all, limit) : all;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的元数据过滤表达式
+ *
+ * 把 Spring AI 的 {@link Filter.Expression} 编译为一棵判定树，支持 EQ/NE/GT/GTE/LT/LTE/IN/NIN/AND/OR/NOT。
+ * 对每个段求值得到允许返回的行号位图：已建索引的字段直接取 {@link MetadataIndex} 中的位图，
+ * AND/OR/NOT 对应位图的与/或/补，未建索引的字段才逐行读取元数据。
+ * 这样过滤在计算任何点积之前完成，被排除的行完全不参与扫描。
+ */
+public final class MetadataFilter {
+
+    private final Node root;
+
+    private MetadataFilter(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译过滤表达式，表达式结构不受支持时抛出 IllegalArgumentException
+     */
+    public static MetadataFilter compile(Filter.Expression expression) {
+        return new MetadataFilter(compileNode(expression));
+    }
+
+    /**
+     * 段内满足条件的行
+     */
+    public BitSet select(Segment segment) {
+        return root.select(segment);
+    }
+
+    /**
+     * 单个文档的元数据是否满足条件（用于没有位图索引的存储）
+     */
+    public boolean matches(Map<String, Object> metadata) {
+        return root.matches(metadata);
+    }
+
+    private static Node compileNode(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return compileNode(group.content());
+        }
+        if (!(operand instanceof Filter.Expression expression)) {
+            throw new IllegalArgumentException("不支持的过滤表达式: " + operand);
+        }
+        return switch (expression.type()) {
+            case AND -> new And(compileNode(expression.left()), compileNode(expression.right()));
+            case OR -> new Or(compileNode(expression.left()), compileNode(expression.right()));
+            case NOT -> new Not(compileNode(expression.left()));
+            case EQ, GT, GTE, LT, LTE -> new Compare(key(expression), expression.type(), value(expression));
+            case NE -> new Not(new Compare(key(expression), Filter.ExpressionType.EQ, value(expression)));
+            case IN -> new In(key(expression), values(expression));
+            case NIN -> new Not(new In(key(expression), values(expression)));
+            default -> throw new IllegalArgumentException("不支持的过滤操作: " + expression.type());
+        };
+    }
+
+    private static String key(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("过滤条件左侧必须是元数据字段: " + expression);
+        }
+        String name = key.key();
+        // 文本表达式中带引号的字段名
+        if (name.length() >= 2 && (name.startsWith("\"") && name.endsWith("\"")
+                || name.startsWith("'") && name.endsWith("'"))) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    private static Object value(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("过滤条件右侧必须是常量: " + expression);
+        }
+        return value.value();
+    }
+
+    private static List<Object> values(Filter.Expression expression) {
+        Object value = value(expression);
+        if (value instanceof List<?> list) {
+            return new ArrayList<>(list);
+        }
+        return List.of(value);
+    }
+
+    /**
+     * 元数据值与常量的比较：数值按double比较，其余按字符串比较；字段缺失时不满足任何比较
+     */
+    private static boolean compare(Object actual, Filter.ExpressionType type, Object expected) {
+        if (actual == null || expected == null) return false;
+        int order;
+        if (actual instanceof Number a && expected instanceof Number b) {
+            order = Double.compare(a.doubleValue(), b.doubleValue());
+        } else if (type == Filter.ExpressionType.EQ) {
+            return String.valueOf(actual).equals(String.valueOf(expected));
+        } else if (actual instanceof String a && expected instanceof String b) {
+            order = a.compareTo(b);
+        } else {
+            return false;
+        }
+        return switch (type) {
+            case EQ -> order == 0;
+            case GT -> order > 0;
+            case GTE -> order >= 0;
+            case LT -> order < 0;
+            case LTE -> order <= 0;
+            default -> false;
+        };
+    }
+
+    private interface Node {
+
+        BitSet select(Segment segment);
+
+        boolean matches(Map<String, Object> metadata);
+    }
+
+    private record And(Node left, Node right) implements Node {
+
+        @Override
+        public BitSet select(Segment segment) {
+            BitSet bits = left.select(segment);
+            if (!bits.isEmpty()) {
+                bits.and(right.select(segment));
+            }
+            return bits;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> metadata) {
+            return left.matches(metadata) && right.matches(metadata);
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+
+        @Override
+        public BitSet select(Segment segment) {
+            BitSet bits = left.select(segment);
+            bits.or(right.select(segment));
+            return bits;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> metadata) {
+            return left.matches(metadata) || right.matches(metadata);
+        }
+    }
+
+    private record Not(Node operand) implements Node {
+
+        @Override
+        public BitSet select(Segment segment) {
+            BitSet bits = operand.select(segment);
+            bits.flip(0, segment.size());
+            return bits;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> metadata) {
+            return !operand.matches(metadata);
+        }
+    }
+
+    private record Compare(String key, Filter.ExpressionType type, Object value) implements Node {
+
+        @Override
+        public BitSet select(Segment segment) {
+            MetadataIndex index = segment.metadataIndex();
+            BitSet bits = null;
+            if (type == Filter.ExpressionType.EQ) {
+                bits = index.equalTo(key, value);
+            } else if (value instanceof Number number) {
+                double v = number.doubleValue();
+                bits = switch (type) {
+                    case GT -> index.range(key, v, false, Double.POSITIVE_INFINITY, true);
+                    case GTE -> index.range(key, v, true, Double.POSITIVE_INFINITY, true);
+                    case LT -> index.range(key, Double.NEGATIVE_INFINITY, true, v, false);
+                    case LTE -> index.range(key, Double.NEGATIVE_INFINITY, true, v, true);
+                    default -> null;
+                };
+            }
+            return bits != null ? bits : scan(segment, this);
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> metadata) {
+            return compare(metadata.get(key), type, value);
+        }
+    }
+
+    private record In(String key, List<Object> values) implements Node {
+
+        @Override
+        public BitSet select(Segment segment) {
+            if (!segment.metadataIndex().isIndexed(key)) {
+                return scan(segment, this);
+            }
+            BitSet bits = new BitSet(segment.size());
+            for (Object value : values) {
+                BitSet matched = segment.metadataIndex().equalTo(key, value);
+                if (matched == null) {
+                    return scan(segment, this);
+                }
+                bits.or(matched);
+            }
+            return bits;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> metadata) {
+            Object actual = metadata.get(key);
+            for (Object value : values) {
+                if (compare(actual, Filter.ExpressionType.EQ, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 未建索引的字段：逐行读取元数据判断
+     */
+    private static BitSet scan(Segment segment, Node node) {
+        BitSet bits = new BitSet(segment.size());
+        for (int row = 0; row < segment.size(); row++) {
+            if (node.matches(segment.document(row).getMetadata())) {
+                bits.set(row);
+            }
+        }
+        return bits;
+    }
+}
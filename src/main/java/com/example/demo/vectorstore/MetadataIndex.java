@@ -0,0 +1,138 @@
+package com.example.demo.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 段内文档元数据的位图索引
+ *
+ * 常用的过滤字段在段创建时建立索引：
+ * - 枚举型字段（type、source、contentType）：每个取值对应一个行号位图
+ * - 数值型字段（chunk、length）：按值排序的行号数组，范围查询时二分定位后置位
+ * 其他字段在过滤时逐行读取元数据判断。
+ */
+public final class MetadataIndex {
+
+    static final Set<String> KEYWORD_FIELDS = Set.of("type", "source", "contentType");
+    static final Set<String> NUMERIC_FIELDS = Set.of("chunk", "length");
+
+    private final int rows;
+    private final Map<String, Map<String, BitSet>> keywords = new HashMap<>();
+    private final Map<String, NumericColumn> numerics = new HashMap<>();
+
+    public MetadataIndex(List<Document> documents) {
+        this.rows = documents.size();
+        for (String field : KEYWORD_FIELDS) {
+            Map<String, BitSet> postings = new HashMap<>();
+            for (int row = 0; row < rows; row++) {
+                Object value = documents.get(row).getMetadata().get(field);
+                if (value != null) {
+                    postings.computeIfAbsent(String.valueOf(value), v -> new BitSet(rows)).set(row);
+                }
+            }
+            keywords.put(field, postings);
+        }
+        for (String field : NUMERIC_FIELDS) {
+            numerics.put(field, NumericColumn.build(documents, field));
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * 字段等于给定值的行；字段未建立枚举索引时返回null
+     */
+    BitSet equalTo(String field, Object value) {
+        Map<String, BitSet> postings = keywords.get(field);
+        if (postings != null) {
+            BitSet bits = postings.get(String.valueOf(value));
+            return bits != null ? (BitSet) bits.clone() : new BitSet(rows);
+        }
+        if (numerics.containsKey(field) && value instanceof Number number) {
+            double v = number.doubleValue();
+            return range(field, v, true, v, true);
+        }
+        return null;
+    }
+
+    /**
+     * 数值字段落在区间内的行；字段未建立数值索引时返回null
+     */
+    BitSet range(String field, double low, boolean lowInclusive, double high, boolean highInclusive) {
+        NumericColumn column = numerics.get(field);
+        if (column == null) return null;
+        int from = lowInclusive ? column.lowerBound(low) : column.upperBound(low);
+        int to = highInclusive ? column.upperBound(high) : column.lowerBound(high);
+        BitSet bits = new BitSet(rows);
+        for (int i = from; i < to; i++) {
+            bits.set(column.rows[i]);
+        }
+        return bits;
+    }
+
+    boolean isIndexed(String field) {
+        return keywords.containsKey(field) || numerics.containsKey(field);
+    }
+
+    /**
+     * 数值列：values 升序，rows[i] 为 values[i] 所在的行号；缺失或非数值的行不收录
+     */
+    private record NumericColumn(double[] values, int[] rows) {
+
+        static NumericColumn build(List<Document> documents, String field) {
+            double[] raw = new double[documents.size()];
+            Integer[] order = new Integer[documents.size()];
+            int count = 0;
+            for (int row = 0; row < documents.size(); row++) {
+                if (documents.get(row).getMetadata().get(field) instanceof Number number) {
+                    raw[row] = number.doubleValue();
+                    order[count++] = row;
+                }
+            }
+            Arrays.sort(order, 0, count, (a, b) -> Double.compare(raw[a], raw[b]));
+            double[] values = new double[count];
+            int[] rows = new int[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = order[i];
+                values[i] = raw[order[i]];
+            }
+            return new NumericColumn(values, rows);
+        }
+
+        /**
+         * 第一个 >= value 的位置
+         */
+        int lowerBound(double value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * 第一个 > value 的位置
+         */
+        int upperBound(double value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= value) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 乘积量化（PQ）索引
+ *
+ * 把每个向量切分为 subspaces 个子向量，每个子空间独立训练一个最多256个中心的码本，
+ * 向量被压缩为 subspaces 个字节（每个字节是对应子空间中最近中心的编号）。
+ *
+ * 查询时先为每个子空间计算查询子向量与全部中心的点积，得到一张
+ * subspaces × 256 的距离表（非对称距离计算，ADC），候选的近似得分只需
+ * subspaces 次查表相加；最后对前 topK * rescoreFactor 个候选用浮点向量精确重排。
+ *
+ * 维度不能被子空间数整除时，余下的维度归入最后一个子空间。
+ * 段内行数不足256时码本中心数随之减少，段合并变大后重新训练即可获得完整码本。
+ *
+ * 内存：构建完成后浮点向量只用于重排，段把浮点矩阵转为堆外的内存映射副本（见 {@link #rescoresOnly()}），
+ * 堆上常驻的只有每行 subspaces 个字节的编码和码本（维度 × 256 个浮点数），
+ * 约为浮点存储的 subspaces / (4 * 维度)；重排时只有少量候选行由操作系统调入。
+ */
+public class ProductQuantizedIndex implements VectorIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductQuantizedIndex.class);
+
+    private static final int MAX_CENTROIDS = 256;
+    private static final int MAX_TRAINING_ROWS = MAX_CENTROIDS * 64;
+
+    private final int subspaces;
+    private final int iterations;
+    private final int rescoreFactor;
+    private final Random random = new Random(42);
+
+    // 子空间 s 覆盖维度 [offsets[s], offsets[s + 1])
+    private int[] offsets;
+    // codebooks[s] 为 centroids × subDim 的行主序矩阵
+    private float[][] codebooks;
+    private int centroids;
+    private byte[] codes;
+    private int rows;
+    private int trainedRows;
+
+    public ProductQuantizedIndex(int subspaces, int iterations, int rescoreFactor) {
+        if (subspaces <= 0) {
+            throw new IllegalArgumentException("PQ子空间数必须大于0: " + subspaces);
+        }
+        this.subspaces = subspaces;
+        this.iterations = Math.max(1, iterations);
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+    }
+
+    @Override
+    public void build(FloatMatrix matrix) {
+        codebooks = null;
+        codes = null;
+        rows = 0;
+        trainedRows = 0;
+        if (matrix == null || matrix.rows() == 0) return;
+
+        long start = System.currentTimeMillis();
+        int dimension = matrix.dimension();
+        int m = Math.min(subspaces, dimension);
+        offsets = new int[m + 1];
+        int width = dimension / m;
+        for (int s = 0; s < m; s++) {
+            offsets[s] = s * width;
+        }
+        offsets[m] = dimension;
+
+        centroids = Math.min(MAX_CENTROIDS, matrix.rows());
+        int[] sample = sampleRows(matrix.rows());
+        codebooks = new float[m][];
+        for (int s = 0; s < m; s++) {
+            codebooks[s] = trainSubspace(matrix, sample, offsets[s], offsets[s + 1] - offsets[s]);
+        }
+
+        codes = new byte[matrix.rows() * m];
+        encode(matrix);
+        trainedRows = matrix.rows();
+        logger.info("PQ索引训练完成: {} 行, {} 个子空间, 每个子空间 {} 个中心, 耗时 {}ms",
+                trainedRows, m, centroids, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void search(FloatMatrix matrix, float[] query, BitSet accept, TopKCollector collector) {
+        if (codebooks == null) return;
+
+        int m = codebooks.length;
+        float[] table = new float[m * centroids];
+        for (int s = 0; s < m; s++) {
+            int start = offsets[s];
+            int subDim = offsets[s + 1] - start;
+            float[] codebook = codebooks[s];
+            for (int c = 0; c < centroids; c++) {
+                float sum = 0f;
+                int base = c * subDim;
+                for (int d = 0; d < subDim; d++) {
+                    sum += codebook[base + d] * query[start + d];
+                }
+                table[s * centroids + c] = sum;
+            }
+        }
+
+        TopKCollector candidates = new TopKCollector(collector.capacity() * rescoreFactor);
+        for (int row = VectorIndex.firstRow(accept); row >= 0 && row < rows; row = VectorIndex.nextRow(accept, row)) {
+            int offset = row * m;
+            float score = 0f;
+            for (int s = 0; s < m; s++) {
+                score += table[s * centroids + (codes[offset + s] & 0xFF)];
+            }
+            candidates.offer(row, score);
+        }
+
+        for (int row : candidates.drainIds()) {
+            collector.offer(row, matrix.dot(row, query));
+        }
+    }
+
+    @Override
+    public boolean rescoresOnly() {
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("index", "pq");
+        stats.put("subspaces", codebooks != null ? codebooks.length : subspaces);
+        stats.put("centroids", centroids);
+        stats.put("rescoreFactor", rescoreFactor);
+        stats.put("codeBytes", codebooks != null ? (long) rows * codebooks.length : 0L);
+        return stats;
+    }
+
+    /**
+     * 在单个子空间上做欧氏距离k-means，返回 centroids × subDim 的码本
+     */
+    private float[] trainSubspace(FloatMatrix matrix, int[] sample, int start, int subDim) {
+        float[] data = matrix.data();
+        int dimension = matrix.dimension();
+        float[] codebook = new float[centroids * subDim];
+        for (int c = 0; c < centroids; c++) {
+            System.arraycopy(data, sample[c] * dimension + start, codebook, c * subDim, subDim);
+        }
+
+        int[] assignment = new int[sample.length];
+        Arrays.fill(assignment, -1);
+        for (int iter = 0; iter < iterations; iter++) {
+            boolean changed = false;
+            for (int i = 0; i < sample.length; i++) {
+                int best = nearest(codebook, data, sample[i] * dimension + start, subDim);
+                if (best != assignment[i]) {
+                    assignment[i] = best;
+                    changed = true;
+                }
+            }
+            if (!changed) break;
+
+            double[] sums = new double[centroids * subDim];
+            int[] counts = new int[centroids];
+            for (int i = 0; i < sample.length; i++) {
+                int c = assignment[i];
+                counts[c]++;
+                int offset = sample[i] * dimension + start;
+                for (int d = 0; d < subDim; d++) {
+                    sums[c * subDim + d] += data[offset + d];
+                }
+            }
+            for (int c = 0; c < centroids; c++) {
+                if (counts[c] == 0) {
+                    // 空中心用随机样本重新播种
+                    int row = sample[random.nextInt(sample.length)];
+                    System.arraycopy(data, row * dimension + start, codebook, c * subDim, subDim);
+                    continue;
+                }
+                for (int d = 0; d < subDim; d++) {
+                    codebook[c * subDim + d] = (float) (sums[c * subDim + d] / counts[c]);
+                }
+            }
+        }
+        return codebook;
+    }
+
+    private void encode(FloatMatrix matrix) {
+        int m = codebooks.length;
+        float[] data = matrix.data();
+        int dimension = matrix.dimension();
+        for (int row = 0; row < matrix.rows(); row++) {
+            for (int s = 0; s < m; s++) {
+                int start = offsets[s];
+                int code = nearest(codebooks[s], data, row * dimension + start, offsets[s + 1] - start);
+                codes[row * m + s] = (byte) code;
+            }
+        }
+        rows = matrix.rows();
+    }
+
+    private int nearest(float[] codebook, float[] data, int offset, int subDim) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < centroids; c++) {
+            int base = c * subDim;
+            float distance = 0f;
+            for (int d = 0; d < subDim; d++) {
+                float diff = codebook[base + d] - data[offset + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private int[] sampleRows(int total) {
+        int[] all = new int[total];
+        for (int i = 0; i < total; i++) {
+            all[i] = i;
+        }
+        for (int i = total - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = all[i];
+            all[i] = all[j];
+            all[j] = tmp;
+        }
+        return total > MAX_TRAINING_ROWS ? Arrays.copyOf(all, MAX_TRAINING_ROWS) : all;
+    }
+}
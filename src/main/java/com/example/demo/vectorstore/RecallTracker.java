@@ -0,0 +1,60 @@
+package com.example.demo.vectorstore;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * 近似索引召回率监控
+ *
+ * 按采样比例对部分查询额外执行一次精确扫描，统计近似结果与精确结果的重合比例（recall@K），
+ * 用于在线验证量化、IVF等近似索引的检索质量。
+ */
+public class RecallTracker {
+
+    private final double sampleRate;
+    private final AtomicLong samples = new AtomicLong();
+    private final DoubleAdder recallSum = new DoubleAdder();
+
+    public RecallTracker(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * 当前查询是否需要采样
+     */
+    public boolean shouldSample() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * 记录一次采样结果
+     *
+     * @param approximate 近似索引返回的行号
+     * @param exact 精确扫描返回的行号
+     */
+    public void record(int[] approximate, int[] exact) {
+        if (exact.length == 0) return;
+        int hits = 0;
+        for (int row : approximate) {
+            for (int expected : exact) {
+                if (row == expected) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        recallSum.add((double) hits / exact.length);
+        samples.incrementAndGet();
+    }
+
+    public void appendStats(Map<String, Object> stats) {
+        long count = samples.get();
+        stats.put("recallSampleRate", sampleRate);
+        stats.put("recallSamples", count);
+        if (count > 0) {
+            stats.put("recall", recallSum.sum() / count);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.vectorstore;
+
+/**
+ * 标量点积内核
+ *
+ * 全程使用float运算并按4路展开，4个独立累加器打破加法之间的数据依赖，
+ * 便于JIT流水线执行；没有 jdk.incubator.vector 模块时使用该实现。
+ */
+public final class ScalarKernel implements SimilarityKernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.vectorstore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * int8 标量量化索引
+ *
+ * 每个维度按构建时统计的 [min, max] 区间线性量化为一个字节，第一遍扫描只读取字节编码，
+ * 内存带宽约为浮点扫描的1/4；再对前 topK * rescoreFactor 个候选用原始浮点向量精确重排。
+ *
+ * 查询时把量化公式展开：
+ *   q · x ≈ Σ q[d] * (min[d] + scale[d] * (code[d] + 128))
+ *         = bias + Σ (q[d] * scale[d]) * code[d]
+ * 因此每个候选只需一次与字节编码的点积。
+ *
+ * 量化区间在段构建时按段内数据标定，段合并时重新标定。
+ *
+ * 构建完成后浮点向量只用于重排，段把浮点矩阵转为堆外的内存映射副本（见 {@link #rescoresOnly()}），
+ * 堆上每个向量只占 dimension 个字节的编码，约为浮点存储的1/4。
+ */
+public class ScalarQuantizedIndex implements VectorIndex {
+
+    private final int rescoreFactor;
+
+    private int dimension;
+    private float[] min;
+    private float[] scale;
+    private byte[] codes;
+    private int rows;
+
+    public ScalarQuantizedIndex(int rescoreFactor) {
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+    }
+
+    @Override
+    public void build(FloatMatrix matrix) {
+        rows = 0;
+        codes = null;
+        if (matrix == null || matrix.rows() == 0) {
+            min = null;
+            return;
+        }
+        calibrate(matrix);
+        codes = new byte[matrix.rows() * dimension];
+        encode(matrix);
+    }
+
+    @Override
+    public void search(FloatMatrix matrix, float[] query, BitSet accept, TopKCollector collector) {
+        if (min == null) return;
+
+        // 预计算查询相关的缩放系数与常数项
+        float[] weights = new float[dimension];
+        float bias = 0f;
+        for (int d = 0; d < dimension; d++) {
+            weights[d] = query[d] * scale[d];
+            bias += query[d] * min[d] + weights[d] * 128f;
+        }
+
+        TopKCollector candidates = new TopKCollector(collector.capacity() * rescoreFactor);
+        for (int row = VectorIndex.firstRow(accept); row >= 0 && row < rows; row = VectorIndex.nextRow(accept, row)) {
+            int offset = row * dimension;
+            float sum = bias;
+            for (int d = 0; d < dimension; d++) {
+                sum += weights[d] * codes[offset + d];
+            }
+            candidates.offer(row, sum);
+        }
+
+        // 用原始浮点向量对候选精确重排
+        for (int row : candidates.drainIds()) {
+            collector.offer(row, matrix.dot(row, query));
+        }
+    }
+
+    @Override
+    public boolean rescoresOnly() {
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("index", "int8");
+        stats.put("rescoreFactor", rescoreFactor);
+        stats.put("codeBytes", codes != null ? (long) rows * dimension : 0L);
+        return stats;
+    }
+
+    private void calibrate(FloatMatrix matrix) {
+        dimension = matrix.dimension();
+        float[] data = matrix.data();
+        min = new float[dimension];
+        float[] max = new float[dimension];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        for (int row = 0; row < matrix.rows(); row++) {
+            int offset = row * dimension;
+            for (int d = 0; d < dimension; d++) {
+                float value = data[offset + d];
+                if (value < min[d]) min[d] = value;
+                if (value > max[d]) max[d] = value;
+            }
+        }
+        scale = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            float range = max[d] - min[d];
+            scale[d] = range > 0f ? range / 255f : 0f;
+        }
+    }
+
+    private void encode(FloatMatrix matrix) {
+        float[] data = matrix.data();
+        for (int row = 0; row < matrix.rows(); row++) {
+            int offset = row * dimension;
+            for (int d = 0; d < dimension; d++) {
+                int level = scale[d] > 0f ? Math.round((data[offset + d] - min[d]) / scale[d]) : 0;
+                level = Math.max(0, Math.min(255, level));
+                codes[offset + d] = (byte) (level - 128);
+            }
+        }
+        rows = matrix.rows();
+    }
+}
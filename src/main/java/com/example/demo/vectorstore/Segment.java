@@ -0,0 +1,184 @@
+package com.example.demo.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 不可变的向量段
+ *
+ * 一个段包含一批文档、对应的向量矩阵、在这批向量上构建好的检索索引以及元数据位图索引。
+ * 段发布后不再修改：新增文档产生新段，合并与压缩产生替换段；
+ * 删除只生成共享数据、带新墓碑位图的段版本（id 不变），
+ * 因此查询线程可以在没有任何锁的情况下安全地读取段内的全部数据。
+ *
+ * 索引只用浮点向量重排候选时（{@link VectorIndex#rescoresOnly()}），段在构建索引后只保留矩阵的内存映射副本。
+ */
+public final class Segment {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
+    private final List<Document> documents;
+    private final FloatMatrix matrix;
+    private final VectorIndex index;
+    private final MetadataIndex metadataIndex;
+    // 墓碑位图及其补集，没有删除时均为null
+    private final BitSet deleted;
+    private final BitSet live;
+
+    /**
+     * 创建段并构建索引，documents 与矩阵行一一对应
+     */
+    public Segment(List<Document> documents, FloatMatrix matrix, VectorIndex index) {
+        if (documents.size() != matrix.rows()) {
+            throw new IllegalArgumentException("文档数 " + documents.size() + " 与向量行数 " + matrix.rows() + " 不一致");
+        }
+        this.id = NEXT_ID.incrementAndGet();
+        this.documents = Collections.unmodifiableList(new ArrayList<>(documents));
+        this.index = index;
+        this.metadataIndex = new MetadataIndex(this.documents);
+        this.deleted = null;
+        this.live = null;
+        index.build(matrix);
+        this.matrix = index.rescoresOnly() ? matrix.offHeap() : matrix;
+    }
+
+    private Segment(Segment base, BitSet deleted) {
+        this.id = base.id;
+        this.documents = base.documents;
+        this.matrix = base.matrix;
+        this.index = base.index;
+        this.metadataIndex = base.metadataIndex;
+        this.deleted = deleted;
+        this.live = (BitSet) deleted.clone();
+        this.live.flip(0, base.size());
+    }
+
+    /**
+     * 段标识，删除产生的新版本沿用同一标识
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * 行数，包含已删除的行
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    public int liveCount() {
+        return size() - deletedCount();
+    }
+
+    public int deletedCount() {
+        return deleted != null ? deleted.cardinality() : 0;
+    }
+
+    public boolean isDeleted(int row) {
+        return deleted != null && deleted.get(row);
+    }
+
+    /**
+     * 未删除的行，没有删除时返回null（表示全部行），调用方不得修改
+     */
+    public BitSet liveRows() {
+        return live;
+    }
+
+    /**
+     * 已删除的行，没有删除时返回null，调用方不得修改
+     */
+    public BitSet deletedRows() {
+        return deleted;
+    }
+
+    public Document document(int row) {
+        return documents.get(row);
+    }
+
+    /**
+     * 全部行的文档，包含已删除的行
+     */
+    public List<Document> documents() {
+        return documents;
+    }
+
+    public FloatMatrix matrix() {
+        return matrix;
+    }
+
+    public VectorIndex index() {
+        return index;
+    }
+
+    public MetadataIndex metadataIndex() {
+        return metadataIndex;
+    }
+
+    /**
+     * 返回额外标记了给定行为删除的新版本，数据与索引共享，不重新构建
+     */
+    public Segment withDeleted(BitSet rows) {
+        BitSet merged = deleted != null ? (BitSet) deleted.clone() : new BitSet(size());
+        merged.or(rows);
+        return new Segment(this, merged);
+    }
+
+    /**
+     * 物理删除墓碑行并重建索引，没有存活行时返回null
+     */
+    public Segment compact(Supplier<VectorIndex> indexFactory) {
+        int remaining = liveCount();
+        if (remaining <= 0) return null;
+
+        int dimension = matrix.dimension();
+        float[] data = new float[remaining * dimension];
+        List<Document> kept = new ArrayList<>(remaining);
+        int write = 0;
+        for (int row = 0; row < size(); row++) {
+            if (isDeleted(row)) continue;
+            matrix.copyRows(row, 1, data, write * dimension);
+            kept.add(documents.get(row));
+            write++;
+        }
+        return new Segment(kept, FloatMatrix.wrap(dimension, data, remaining), indexFactory.get());
+    }
+
+    /**
+     * 把多个段的存活行合并为一个段，并在合并后的全部向量上重新构建索引
+     */
+    public static Segment merge(List<Segment> segments, Supplier<VectorIndex> indexFactory) {
+        int dimension = segments.get(0).matrix.dimension();
+        int rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.liveCount();
+        }
+
+        float[] data = new float[rows * dimension];
+        List<Document> documents = new ArrayList<>(rows);
+        int write = 0;
+        for (Segment segment : segments) {
+            if (segment.deleted == null) {
+                segment.matrix.copyRows(0, segment.size(), data, write * dimension);
+                documents.addAll(segment.documents);
+                write += segment.size();
+                continue;
+            }
+            for (int row = 0; row < segment.size(); row++) {
+                if (segment.deleted.get(row)) continue;
+                segment.matrix.copyRows(row, 1, data, write * dimension);
+                documents.add(segment.documents.get(row));
+                write++;
+            }
+        }
+        return new Segment(documents, FloatMatrix.wrap(dimension, data, rows), indexFactory.get());
+    }
+}
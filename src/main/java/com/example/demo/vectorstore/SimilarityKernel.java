@@ -0,0 +1,20 @@
+package com.example.demo.vectorstore;
+
+/**
+ * 相似度计算内核
+ *
+ * 所有索引的点积最终都经由 {@link FloatMatrix} 调用当前内核，
+ * 具体实现由 {@link SimilarityKernels#get()} 在启动时选定。
+ */
+public interface SimilarityKernel {
+
+    /**
+     * 计算 a[aOffset, aOffset + length) 与 b[bOffset, bOffset + length) 的点积
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * 内核名称，用于监控
+     */
+    String name();
+}
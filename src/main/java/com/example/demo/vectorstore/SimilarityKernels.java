@@ -0,0 +1,38 @@
+package com.example.demo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 选择当前JVM可用的相似度内核
+ *
+ * 以 vector-api 构建配置（mvn -Pvector-api）编译、并以 --add-modules jdk.incubator.vector 启动时，
+ * 通过反射加载基于 Vector API 的SIMD内核；类或模块不存在时退回 {@link ScalarKernel}。
+ */
+public final class SimilarityKernels {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityKernels.class);
+
+    private static final String VECTOR_API_KERNEL = "com.example.demo.vectorstore.VectorApiKernel";
+
+    private static final SimilarityKernel KERNEL = load();
+
+    private SimilarityKernels() {
+    }
+
+    public static SimilarityKernel get() {
+        return KERNEL;
+    }
+
+    private static SimilarityKernel load() {
+        try {
+            SimilarityKernel kernel = (SimilarityKernel) Class.forName(VECTOR_API_KERNEL)
+                    .getDeclaredConstructor().newInstance();
+            logger.info("使用SIMD相似度内核: {}", kernel.name());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.info("Vector API不可用，使用标量相似度内核");
+            return new ScalarKernel();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.vectorstore;
+
+/**
+ * 定长最小堆，用于从大量候选中选出得分最高的K个
+ *
+ * 堆直接存放在两个基本类型数组中（得分 + 行号），扫描过程中不创建任何对象：
+ * - 堆未满时直接入堆
+ * - 堆满后只有得分高于堆顶（当前第K名）的候选才会替换堆顶
+ * 整体复杂度 O(N log K)，内存占用只与K有关。
+ *
+ * 可以指定相似度阈值，低于阈值的候选在入堆前直接丢弃。
+ */
+public class TopKCollector {
+
+    private final int capacity;
+    private final float[] scores;
+    private final int[] ids;
+    private final float threshold;
+    private int size;
+
+    public TopKCollector(int k) {
+        this(k, Float.NEGATIVE_INFINITY);
+    }
+
+    public TopKCollector(int k, float threshold) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("topK必须大于0: " + k);
+        }
+        this.capacity = k;
+        this.scores = new float[k];
+        this.ids = new int[k];
+        this.threshold = threshold;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 相似度阈值，未设置时为负无穷
+     */
+    public float threshold() {
+        return threshold;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * 当前第K名的得分，堆未满时返回阈值（不低于阈值的候选都可以进入）
+     */
+    public float minScore() {
+        return size < capacity ? threshold : scores[0];
+    }
+
+    /**
+     * 提交一个候选
+     *
+     * @return 候选是否进入了堆
+     */
+    public boolean offer(int id, float score) {
+        if (score < threshold) {
+            return false;
+        }
+        if (size < capacity) {
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+            return true;
+        }
+        if (score <= scores[0]) {
+            return false;
+        }
+        scores[0] = score;
+        ids[0] = id;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * 合并另一个收集器中的全部候选
+     */
+    public void merge(TopKCollector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * 按得分降序导出行号，导出后收集器被清空
+     */
+    public int[] drainIds() {
+        int[] result = new int[size];
+        float[] resultScores = new float[size];
+        drain(result, resultScores);
+        return result;
+    }
+
+    /**
+     * 按得分降序把行号和得分写入给定数组，导出后收集器被清空
+     *
+     * @return 导出的候选数量
+     */
+    public int drain(int[] outIds, float[] outScores) {
+        int count = size;
+        for (int i = count - 1; i >= 0; i--) {
+            outIds[i] = ids[0];
+            outScores[i] = scores[0];
+            size--;
+            if (size > 0) {
+                scores[0] = scores[size];
+                ids[0] = ids[size];
+                siftDown(0);
+            }
+        }
+        return count;
+    }
+
+    private void siftUp(int index) {
+        float score = scores[index];
+        int id = ids[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= score) break;
+            scores[index] = scores[parent];
+            ids[index] = ids[parent];
+            index = parent;
+        }
+        scores[index] = score;
+        ids[index] = id;
+    }
+
+    private void siftDown(int index) {
+        float score = scores[index];
+        int id = ids[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) break;
+            scores[index] = scores[child];
+            ids[index] = ids[child];
+            index = child;
+        }
+        scores[index] = score;
+        ids[index] = id;
+    }
+}
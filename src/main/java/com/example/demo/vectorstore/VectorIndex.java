@@ -0,0 +1,55 @@
+package com.example.demo.vectorstore;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * 内存向量存储的检索索引
+ *
+ * 向量本身统一保存在 {@link FloatMatrix} 中，索引只维护加速检索所需的辅助结构。
+ * 每个索引实例属于一个不可变的 {@link Segment}，在段创建时对段内全部行构建一次，
+ * 之后只读；数据变化通过生成新段（合并时重新训练）来体现。
+ */
+public interface VectorIndex {
+
+    /**
+     * 基于矩阵中的全部行重建索引
+     */
+    void build(FloatMatrix matrix);
+
+    /**
+     * 检索与（已归一化的）查询向量最相似的行，结果写入收集器
+     *
+     * @param accept 元数据过滤后允许返回的行，null表示不过滤；被排除的行不计算点积
+     */
+    void search(FloatMatrix matrix, float[] query, BitSet accept, TopKCollector collector);
+
+    /**
+     * 索引名称及运行统计，用于监控
+     */
+    Map<String, Object> stats();
+
+    /**
+     * 构建完成后是否只在候选重排时按行读取浮点向量
+     *
+     * 为true时段在构建索引后把浮点矩阵转为堆外的内存映射副本（见 {@link FloatMatrix#offHeap()}），
+     * 堆上只留索引自己的编码；顺序扫描浮点矩阵的索引应保持默认值。
+     */
+    default boolean rescoresOnly() {
+        return false;
+    }
+
+    /**
+     * 遍历候选行的起点：不过滤时为0，否则为第一个允许的行，没有时为-1
+     */
+    static int firstRow(BitSet accept) {
+        return accept == null ? 0 : accept.nextSetBit(0);
+    }
+
+    /**
+     * row 之后的下一个候选行，没有时为-1
+     */
+    static int nextRow(BitSet accept, int row) {
+        return accept == null ? row + 1 : accept.nextSetBit(row + 1);
+    }
+}
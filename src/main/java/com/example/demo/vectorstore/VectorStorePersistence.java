@@ -0,0 +1,333 @@
+package com.example.demo.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 向量存储的本地持久化
+ *
+ * 每次保存写出一个新版本目录 gen-<n>，其中包含两个文件：
+ * - vectors.bin: 24字节文件头（魔数、版本、行数、维度、版本号n）+ 按行主序排列的已归一化float数据（小端序）
+ * - documents.json: 版本号n以及与向量行一一对应的文档ID、文本和元数据
+ *
+ * 两个文件都写完并落盘后，才通过原子替换存储目录下的 CURRENT 文件切换到新版本，随后删除旧版本目录，
+ * 因此任何时刻崩溃，CURRENT 指向的都是一对完整的同版本文件。加载时还会校验两个文件中的版本号
+ * 与 CURRENT 一致，不一致时拒绝加载（由调用方重新嵌入）。
+ * 加载时通过 FileChannel.map 映射向量文件，直接批量读入连续矩阵，不需要重新调用嵌入模型。
+ * 每次保存都重写全部数据，调用方应合并连续的写操作（见 flushDelayMillis），不要每次写入都保存。
+ *
+ * 旧版本直接写在存储目录下的 vectors.bin / documents.json 仍可加载，下一次保存后被删除。
+ */
+public class VectorStorePersistence {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorStorePersistence.class);
+
+    private static final int MAGIC = 0x56454331; // "VEC1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int LEGACY_VERSION = 1;
+    private static final int LEGACY_HEADER_BYTES = 16;
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String DOCUMENTS_FILE = "documents.json";
+    private static final String CURRENT_FILE = "CURRENT";
+    private static final String GENERATION_PREFIX = "gen-";
+
+    private final Path directory;
+    private final long flushDelayMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public VectorStorePersistence(Path directory) {
+        this(directory, 0L);
+    }
+
+    /**
+     * @param directory        持久化目录
+     * @param flushDelayMillis 写操作之后延迟多久保存，延迟期间的后续写操作合并为一次保存
+     */
+    public VectorStorePersistence(Path directory, long flushDelayMillis) {
+        this.directory = directory;
+        this.flushDelayMillis = Math.max(0L, flushDelayMillis);
+    }
+
+    public long flushDelayMillis() {
+        return flushDelayMillis;
+    }
+
+    /**
+     * 已加载的持久化数据
+     */
+    public record Snapshot(FloatMatrix matrix, List<Document> documents) {
+    }
+
+    /**
+     * 按顺序保存全部段中未删除的向量及对应文档，加载时合并为一个段
+     */
+    public synchronized void save(List<Segment> segments) throws IOException {
+        Files.createDirectories(directory);
+        int rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.liveCount();
+        }
+        int dimension = segments.isEmpty() ? 0 : segments.get(0).matrix().dimension();
+
+        // 新版本号大于目录中任何版本（包括上次崩溃时残留的半成品），不会覆盖 CURRENT 指向的版本
+        long generation = latestGeneration() + 1;
+        Path target = directory.resolve(GENERATION_PREFIX + generation);
+        Files.createDirectories(target);
+        writeVectors(target.resolve(VECTORS_FILE), segments, rows, dimension, generation);
+        writeDocuments(target.resolve(DOCUMENTS_FILE), segments, rows, generation);
+
+        Path pointerTmp = directory.resolve(CURRENT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(pointerTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(target.getFileName().toString().getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(pointerTmp, directory.resolve(CURRENT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        removeStale(target);
+        logger.debug("向量存储已持久化: {} 行, 版本 {}, 目录 {}", rows, generation, directory);
+    }
+
+    /**
+     * 加载 CURRENT 指向的版本，文件不存在、已损坏或两个文件版本不一致时返回null
+     */
+    public synchronized Snapshot load() {
+        Path pointer = directory.resolve(CURRENT_FILE);
+        try {
+            if (!Files.exists(pointer)) {
+                return read(directory.resolve(VECTORS_FILE), directory.resolve(DOCUMENTS_FILE), -1L);
+            }
+            String name = Files.readString(pointer, StandardCharsets.UTF_8).trim();
+            long generation = parseGeneration(name);
+            if (generation < 0) {
+                logger.warn("CURRENT 文件内容不正确，忽略持久化数据: {}", name);
+                return null;
+            }
+            Path source = directory.resolve(name);
+            return read(source.resolve(VECTORS_FILE), source.resolve(DOCUMENTS_FILE), generation);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("加载持久化向量存储失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取一对向量文件和文档文件
+     *
+     * @param generation 期望的版本号，小于0表示旧格式（没有版本号）
+     */
+    private Snapshot read(Path vectorsFile, Path documentsFile, long generation) throws IOException {
+        if (!Files.exists(vectorsFile) || !Files.exists(documentsFile)) {
+            return null;
+        }
+        boolean legacy = generation < 0;
+
+        try (FileChannel channel = FileChannel.open(vectorsFile, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.remaining() < (legacy ? LEGACY_HEADER_BYTES : HEADER_BYTES)
+                    || mapped.getInt() != MAGIC || mapped.getInt() != (legacy ? LEGACY_VERSION : VERSION)) {
+                logger.warn("向量文件格式不正确，忽略持久化数据: {}", vectorsFile);
+                return null;
+            }
+            int rows = mapped.getInt();
+            int dimension = mapped.getInt();
+            if (!legacy && mapped.getLong() != generation) {
+                logger.warn("向量文件的版本号与 CURRENT 不一致，忽略持久化数据: {}", vectorsFile);
+                return null;
+            }
+            if ((long) rows * dimension * Float.BYTES != mapped.remaining()) {
+                logger.warn("向量文件长度与文件头不一致，忽略持久化数据: {}", vectorsFile);
+                return null;
+            }
+
+            List<Map<String, Object>> entries;
+            if (legacy) {
+                entries = objectMapper.readValue(documentsFile.toFile(),
+                        new TypeReference<List<Map<String, Object>>>() {});
+            } else {
+                DocumentsFile file = objectMapper.readValue(documentsFile.toFile(), DocumentsFile.class);
+                if (file.generation() != generation || file.documents() == null) {
+                    logger.warn("文档文件的版本号 {} 与向量文件 {} 不一致，忽略持久化数据", file.generation(), generation);
+                    return null;
+                }
+                entries = file.documents();
+            }
+            if (entries.size() != rows) {
+                logger.warn("文档数 {} 与向量行数 {} 不一致，忽略持久化数据", entries.size(), rows);
+                return null;
+            }
+
+            List<Document> documents = new ArrayList<>(rows);
+            for (Map<String, Object> entry : entries) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> metadata = (Map<String, Object>) entry.get("metadata");
+                documents.add(new Document((String) entry.get("id"), (String) entry.get("text"),
+                        metadata != null ? metadata : new LinkedHashMap<>()));
+            }
+
+            if (rows == 0) {
+                return new Snapshot(null, documents);
+            }
+            float[] data = new float[rows * dimension];
+            mapped.asFloatBuffer().get(data);
+            return new Snapshot(FloatMatrix.wrap(dimension, data, rows), documents);
+        }
+    }
+
+    /**
+     * documents.json 的内容
+     */
+    private record DocumentsFile(long generation, List<Map<String, Object>> documents) {
+    }
+
+    private void writeVectors(Path file, List<Segment> segments, int rows, int dimension, long generation)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(dimension).putLong(generation).flip();
+            writeFully(channel, header);
+
+            // 分块写出，避免一次性分配与矩阵同样大小的直接内存
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            // 量化索引的段只在堆外保留向量，逐行复制出来写出
+            float[] row = new float[dimension];
+            for (Segment segment : segments) {
+                FloatMatrix matrix = segment.matrix();
+                if (segment.deletedCount() == 0 && matrix.onHeap()) {
+                    writeFloats(channel, buffer, matrix.data(), 0, segment.size() * dimension);
+                    continue;
+                }
+                for (int r = 0; r < segment.size(); r++) {
+                    if (segment.isDeleted(r)) continue;
+                    matrix.copyRows(r, 1, row, 0);
+                    writeFloats(channel, buffer, row, 0, dimension);
+                }
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    private void writeDocuments(Path file, List<Segment> segments, int rows, long generation) throws IOException {
+        List<Map<String, Object>> entries = new ArrayList<>(rows);
+        for (Segment segment : segments) {
+            for (int row = 0; row < segment.size(); row++) {
+                if (segment.isDeleted(row)) continue;
+                Document document = segment.document(row);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", document.getId());
+                entry.put("text", document.getText());
+                entry.put("metadata", document.getMetadata());
+                entries.add(entry);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(objectMapper.writeValueAsBytes(new DocumentsFile(generation, entries))));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 目录中最大的版本号，没有时为0
+     */
+    private long latestGeneration() throws IOException {
+        long latest = 0L;
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path child : (Iterable<Path>) children::iterator) {
+                latest = Math.max(latest, parseGeneration(child.getFileName().toString()));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 解析 gen-<n> 形式的目录名，不是版本目录时返回-1
+     */
+    private static long parseGeneration(String name) {
+        if (!name.startsWith(GENERATION_PREFIX)) return -1L;
+        try {
+            return Long.parseLong(name.substring(GENERATION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * 切换到新版本后删除其他版本目录和旧格式文件，删除失败只影响磁盘占用
+     */
+    private void removeStale(Path keep) {
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path child : (Iterable<Path>) children::iterator) {
+                String name = child.getFileName().toString();
+                boolean staleGeneration = parseGeneration(name) >= 0 && !child.equals(keep);
+                boolean legacyFile = name.startsWith(VECTORS_FILE) || name.startsWith(DOCUMENTS_FILE);
+                if (staleGeneration || legacyFile) {
+                    deleteRecursively(child);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理旧版本持久化数据失败: {}", e.getMessage());
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                for (Path child : (Iterable<Path>) children::iterator) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * 把 data[offset, offset + length) 追加到缓冲区，缓冲区写满时刷出到文件
+     */
+    private static void writeFloats(FileChannel channel, ByteBuffer buffer, float[] data, int offset, int length)
+            throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (buffer.remaining() < Float.BYTES) {
+                buffer.flip();
+                writeFully(channel, buffer);
+                buffer.clear();
+            }
+            int count = Math.min(length - written, buffer.remaining() / Float.BYTES);
+            buffer.asFloatBuffer().put(data, offset + written, count);
+            buffer.position(buffer.position() + count * Float.BYTES);
+            written += count;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
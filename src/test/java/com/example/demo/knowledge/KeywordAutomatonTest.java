@@ -0,0 +1,88 @@
+package com.example.demo.knowledge;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeywordAutomatonTest {
+
+    private static final int SYMPTOM = 1;
+    private static final int DISEASE = 2;
+
+    @Test
+    void findsOverlappingAndNestedKeywords() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(DISEASE, "糖尿病", "2型糖尿病", "尿病")
+                .add(SYMPTOM, "多尿", "尿")
+                .build();
+
+        KeywordAutomaton.Hits hits = automaton.scan("患者2型糖尿病，伴多尿");
+
+        // 同一位置结束的后缀关键词（尿病、尿）和互相重叠的关键词都要被找到
+        assertThat(hits.keywords()).containsExactly("糖尿病", "2型糖尿病", "尿病", "多尿", "尿");
+        assertThat(hits.count(DISEASE)).isEqualTo(3);
+        assertThat(hits.count(SYMPTOM)).isEqualTo(2);
+    }
+
+    @Test
+    void followsFailureLinksAcrossPartialMatches() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(DISEASE, "abcd", "bcx", "cx")
+                .build();
+
+        // abc 匹配失败后要沿失败链接转到 bc，再读入 x 得到 bcx 和 cx
+        KeywordAutomaton.Hits hits = automaton.scan("abcx");
+
+        assertThat(hits.keywords()).containsExactly("bcx", "cx");
+        assertThat(automaton.scan("ababcd").keywords()).containsExactly("abcd");
+    }
+
+    @Test
+    void matchesCaseInsensitively() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(SYMPTOM, "ALT")
+                .build();
+
+        assertThat(automaton.scan("血清alt升高").keywords()).containsExactly("alt");
+        assertThat(automaton.containsAny("Alt 80 U/L", SYMPTOM)).isTrue();
+        assertThat(automaton.containsAny("AST 40 U/L", SYMPTOM)).isFalse();
+    }
+
+    @Test
+    void mergesCategoriesOfDuplicateKeywords() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(SYMPTOM, "头晕", "乏力")
+                .add(DISEASE, "头晕")
+                .build();
+
+        assertThat(automaton.size()).isEqualTo(2);
+        assertThat(automaton.categories(0)).isEqualTo(SYMPTOM | DISEASE);
+        KeywordAutomaton.Hits hits = automaton.scan("头晕三天");
+        assertThat(hits.any(SYMPTOM)).isTrue();
+        assertThat(hits.any(DISEASE)).isTrue();
+        assertThat(hits.contains(1)).isFalse();
+    }
+
+    @Test
+    void maskFollowsRegistrationOrderWithinCategory() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(SYMPTOM, "胸痛", "心悸", "气短")
+                .add(DISEASE, "冠心病")
+                .build();
+
+        assertThat(automaton.scan("气短伴胸痛").mask(SYMPTOM)).isEqualTo(0b101L);
+        assertThat(automaton.scan("冠心病").mask(SYMPTOM)).isZero();
+        assertThat(automaton.scan("冠心病").mask(DISEASE)).isEqualTo(1L);
+    }
+
+    @Test
+    void emptyAutomatonMatchesNothing() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder().add(SYMPTOM, "", null).build();
+
+        assertThat(automaton.size()).isZero();
+        assertThat(automaton.scan("任意文本").keywords()).isEmpty();
+        assertThatThrownBy(() -> KeywordAutomaton.builder().add(0, "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo.knowledge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarkdownChunkerTest {
+
+    private static final String LONG_SENTENCE = "谷丙转氨酶升高提示肝细胞损伤，需要结合病史综合判断。";
+
+    @Test
+    void shortSectionsAreEmittedWhole() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 200, 100, 5, 0);
+        String text = "# 糖尿病\n空腹血糖不低于7.0 mmol/L。\n\n## 诊断\n糖化血红蛋白不低于6.5%。\n";
+
+        List<Chunk> chunks = chunker.chunk(text);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).section()).isZero();
+        assertThat(chunks.get(0).split()).isFalse();
+        assertThat(chunks.get(0).title()).isEqualTo("糖尿病");
+        assertThat(chunks.get(0).text()).isEqualTo("# 糖尿病\n空腹血糖不低于7.0 mmol/L。");
+        assertThat(chunks.get(1).section()).isEqualTo(1);
+        assertThat(chunks.get(1).title()).isEqualTo("诊断");
+        assertThat(chunks.get(1).parentTitle()).isEqualTo("糖尿病");
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void sectionsShorterThanMinSizeAreDropped() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 200, 100, 20, 0);
+
+        List<Chunk> chunks = chunker.chunk("# 短\n很短。\n# 肝功能\n" + LONG_SENTENCE + "\n");
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).title()).isEqualTo("肝功能");
+    }
+
+    @Test
+    void longSectionIsSplitWithinMaxSizeAndOverlaps() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 120, 80, 10, 40);
+        StringBuilder text = new StringBuilder("# 肝功能\n\n");
+        for (int i = 0; i < 20; i++) {
+            text.append("第").append(i).append("段：").append(LONG_SENTENCE).append("\n\n");
+        }
+
+        List<Chunk> chunks = chunker.chunk(text);
+
+        assertThat(chunks).hasSizeGreaterThan(3);
+        assertOffsets(text, chunks);
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            assertThat(chunk.size()).isLessThanOrEqualTo(120);
+            assertThat(chunk.split()).isTrue();
+            assertThat(chunk.part()).isEqualTo(i);
+            assertThat(chunk.parentTitle()).isEqualTo("肝功能");
+            if (i > 0) {
+                // 相邻片段的重叠部分是前一个片段末尾的完整段落
+                Chunk previous = chunks.get(i - 1);
+                assertThat(chunk.startOffset()).isLessThan(previous.endOffset());
+                String shared = text.substring((int) chunk.startOffset(), (int) previous.endOffset());
+                assertThat(previous.text()).endsWith(shared);
+                assertThat(shared.length()).isLessThanOrEqualTo(40);
+            }
+        }
+    }
+
+    @Test
+    void oversizedLineIsHardSplitAndKeepsHeading() {
+        MarkdownChunker chunker = new MarkdownChunker(3, TokenEstimator.INSTANCE, 480, 320, 24, 48);
+        String text = "# 肝功能\n\n" + LONG_SENTENCE.repeat(80) + "\n";
+        assertThat(TokenEstimator.INSTANCE.estimate(text)).isGreaterThan(2000);
+
+        List<Chunk> chunks = chunker.chunk(text);
+
+        assertThat(chunks).hasSizeGreaterThan(4);
+        assertOffsets(text, chunks);
+        for (Chunk chunk : chunks) {
+            assertThat(chunk.size()).isLessThanOrEqualTo(480);
+            assertThat(TokenEstimator.INSTANCE.estimate(chunk.text())).isLessThanOrEqualTo(480);
+        }
+        // 标题与长行的第一段在同一个片段中，不单独成为过短的片段
+        assertThat(chunks.get(0).text()).startsWith("# 肝功能\n\n谷丙转氨酶");
+        assertThat(chunks.get(0).size()).isGreaterThanOrEqualTo(24);
+        for (int i = 1; i < chunks.size(); i++) {
+            Chunk previous = chunks.get(i - 1);
+            Chunk chunk = chunks.get(i);
+            assertThat(chunk.startOffset()).isLessThan(previous.endOffset());
+            assertThat(TokenEstimator.INSTANCE.measure(text, (int) chunk.startOffset(), (int) previous.endOffset()))
+                    .isLessThanOrEqualTo(48);
+        }
+    }
+
+    @Test
+    void lineLongerThanMaxSizeIsSplitWithoutLosingText() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 100, 80, 10, 0);
+        String line = LONG_SENTENCE.repeat(20);
+
+        List<Chunk> chunks = chunker.chunk(line);
+
+        assertThat(chunks).hasSizeGreaterThan(5);
+        assertOffsets(line, chunks);
+        StringBuilder joined = new StringBuilder();
+        for (Chunk chunk : chunks) {
+            assertThat(chunk.size()).isLessThanOrEqualTo(100);
+            joined.append(chunk.text());
+        }
+        // 没有重叠时各片段首尾相接，拼起来就是原来的一行
+        assertThat(joined.toString()).isEqualTo(line);
+        // 优先切在标点之后
+        assertThat(chunks.get(0).text()).endsWith("。");
+    }
+
+    @Test
+    void headingStaysWithParagraphThatFillsTheChunk() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 120, 80, 10, 0);
+        StringBuilder text = new StringBuilder("# 肝功能\n\n");
+        for (int i = 0; i < 8; i++) {
+            text.append("第").append(i).append("行：").append(LONG_SENTENCE).append('\n');
+        }
+
+        List<Chunk> chunks = chunker.chunk(text);
+
+        assertOffsets(text, chunks);
+        assertThat(chunks.get(0).text()).startsWith("# 肝功能\n\n第0行");
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(chunk.size()).isBetween(10, 120);
+            assertThat(chunk.text()).isNotEqualTo("# 肝功能");
+        });
+    }
+
+    @Test
+    void headingStaysWithLineThatOnlyFitsAlone() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 100, 80, 10, 0);
+        String line = "x".repeat(100);
+
+        List<Chunk> chunks = chunker.chunk("# 标题\n" + line + "\n");
+
+        // 标题与这一行合计超过上限，这一行被切开，标题留在第一个片段中
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).text()).startsWith("# 标题\nxxx");
+        assertThat(chunks.get(0).size()).isLessThanOrEqualTo(100);
+        assertThat(chunks.get(1).text()).matches("x+");
+    }
+
+    @Test
+    void overlapContinuesAcrossHardSplitOfOneLine() {
+        MarkdownChunker chunker = new MarkdownChunker(3, ChunkMeasure.CHARACTERS, 100, 80, 10, 20);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            line.append("word").append(i).append(' ');
+        }
+        String text = line.toString().trim();
+
+        List<Chunk> chunks = chunker.chunk(text);
+
+        assertThat(chunks).hasSizeGreaterThan(3);
+        assertOffsets(text, chunks);
+        for (int i = 1; i < chunks.size(); i++) {
+            Chunk previous = chunks.get(i - 1);
+            Chunk chunk = chunks.get(i);
+            assertThat(chunk.size()).isLessThanOrEqualTo(100);
+            // 切分点在行内，下一个片段以前一个片段末尾的若干完整单词开头
+            String shared = text.substring((int) chunk.startOffset(), (int) previous.endOffset());
+            assertThat(shared).isNotBlank().hasSizeLessThanOrEqualTo(20);
+            assertThat(previous.text()).endsWith(shared);
+            assertThat(text.charAt((int) chunk.startOffset() - 1)).isEqualTo(' ');
+        }
+        assertThat(chunks.get(chunks.size() - 1).endOffset()).isEqualTo(text.length());
+    }
+
+    @Test
+    void streamingAppendMatchesOneShot() {
+        MarkdownChunker chunker = new MarkdownChunker(2, TokenEstimator.INSTANCE, 60, 40, 5, 10);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            text.append(i % 7 == 0 ? "## 标题" + i + "\n" : "")
+                    .append("ALT value ").append(i).append(' ').append(LONG_SENTENCE.repeat(i % 5 + 1))
+                    .append(i % 3 == 0 ? "\r\n\n" : "\n");
+        }
+        List<Chunk> expected = chunker.chunk(text);
+
+        Random random = new Random(42);
+        List<Chunk> streamed = new ArrayList<>();
+        MarkdownChunker.Session session = chunker.open(streamed::add);
+        for (int i = 0; i < text.length(); ) {
+            int n = Math.min(text.length() - i, 1 + random.nextInt(16));
+            session.append(text, i, i + n);
+            i += n;
+        }
+        session.finish();
+
+        assertThat(streamed).isEqualTo(expected);
+        assertOffsets(text, expected);
+    }
+
+    @Test
+    void lineWithoutNewlineIsChunkedBeforeFinish() {
+        MarkdownChunker chunker = new MarkdownChunker(3, TokenEstimator.INSTANCE, 480, 320, 24, 48);
+        List<Chunk> chunks = new ArrayList<>();
+        MarkdownChunker.Session session = chunker.open(chunks::add);
+        String block = LONG_SENTENCE.repeat(100);
+
+        for (int i = 0; i < 20; i++) {
+            session.append(block);
+        }
+
+        // 没有换行时当前行也不会无限累积，片段在文本结束前就已输出
+        assertThat(chunks).isNotEmpty();
+        session.finish();
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.size()).isLessThanOrEqualTo(480));
+    }
+
+    private static void assertOffsets(CharSequence text, List<Chunk> chunks) {
+        long lastStart = -1;
+        for (Chunk chunk : chunks) {
+            assertThat(text.subSequence((int) chunk.startOffset(), (int) chunk.endOffset()).toString())
+                    .isEqualTo(chunk.text());
+            assertThat(chunk.startOffset()).isGreaterThan(lastStart);
+            lastStart = chunk.startOffset();
+        }
+    }
+}
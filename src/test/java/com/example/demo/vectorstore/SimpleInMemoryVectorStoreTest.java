@@ -0,0 +1,183 @@
+package com.example.demo.vectorstore;
+
+import com.example.demo.config.VectorStoreConfig;
+import com.example.demo.config.VectorStoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimpleInMemoryVectorStoreTest {
+
+    // 每个文本映射到一个固定方向的向量，查询文本与同名文档的相似度最高
+    private static final Map<String, float[]> VECTORS = Map.of(
+            "血糖", new float[]{1, 0, 0},
+            "血糖偏高", new float[]{0.9f, 0.1f, 0},
+            "肝功能", new float[]{0, 1, 0},
+            "转氨酶", new float[]{0.1f, 0.9f, 0},
+            "血压", new float[]{0, 0, 1});
+
+    private VectorStoreConfig.SimpleInMemoryVectorStore store;
+
+    @BeforeEach
+    void setUp() {
+        VectorStoreProperties.Segments segments = new VectorStoreProperties.Segments();
+        segments.setCompactIntervalSeconds(0);
+        store = new VectorStoreConfig.SimpleInMemoryVectorStore(new DocumentEmbedder(new FixedEmbeddingModel(), null),
+                FlatIndex::new, new RecallTracker(0.0), null, segments);
+        store.add(List.of(
+                document("d1", "血糖", "DIABETES"),
+                document("d2", "血糖偏高", "DIABETES"),
+                document("l1", "肝功能", "LIVER"),
+                document("l2", "转氨酶", "LIVER"),
+                document("c1", "血压", "CARDIOVASCULAR")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void searchReturnsNearestFirst() {
+        List<Document> results = store.similaritySearch(SearchRequest.builder().query("血糖").topK(2).build());
+
+        assertThat(ids(results)).containsExactly("d1", "d2");
+    }
+
+    @Test
+    void searchAppliesMetadataFilter() {
+        List<Document> results = store.similaritySearch(SearchRequest.builder()
+                .query("血糖").topK(5).filterExpression("type == 'LIVER'").build());
+
+        assertThat(ids(results)).containsExactlyInAnyOrder("l1", "l2");
+    }
+
+    @Test
+    void searchAppliesSimilarityThreshold() {
+        List<Document> results = store.similaritySearch(SearchRequest.builder()
+                .query("肝功能").topK(5).similarityThreshold(0.5).build());
+
+        assertThat(ids(results)).containsExactly("l1", "l2");
+    }
+
+    @Test
+    void deleteByIdRemovesOnlyThoseDocuments() {
+        store.delete(List.of("d1", "missing"));
+
+        assertThat(store.getDocument("d1")).isNull();
+        assertThat(store.getDocument("d2")).isNotNull();
+        assertThat(ids(store.getDocuments())).containsExactlyInAnyOrder("d2", "l1", "l2", "c1");
+        assertThat(ids(store.similaritySearch(SearchRequest.builder().query("血糖").topK(1).build())))
+                .containsExactly("d2");
+    }
+
+    @Test
+    void deleteByFilterRemovesMatchingDocuments() {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        store.delete(b.eq("type", "DIABETES").build());
+
+        assertThat(ids(store.getDocuments())).containsExactlyInAnyOrder("l1", "l2", "c1");
+        assertThat(ids(store.similaritySearch(SearchRequest.builder().query("血糖").topK(5).build())))
+                .doesNotContain("d1", "d2");
+
+        // 删除后同一主键可以重新写入
+        store.add(List.of(document("d1", "血糖", "DIABETES")));
+        assertThat(store.getDocument("d1")).isNotNull();
+    }
+
+    @Test
+    void addWithExistingIdReplacesDocument() {
+        store.add(List.of(document("l1", "血压", "CARDIOVASCULAR")));
+
+        assertThat(store.getDocuments()).hasSize(5);
+        assertThat(store.getDocument("l1").getMetadata()).containsEntry("type", "CARDIOVASCULAR");
+        assertThat(ids(store.similaritySearch(SearchRequest.builder().query("血压").topK(2).build())))
+                .containsExactlyInAnyOrder("c1", "l1");
+    }
+
+    @Test
+    void addEmbeddedReportsOnlyWrittenDocuments() {
+        List<String> written = store.addEmbedded(
+                List.of(document("d1", "血压", "CARDIOVASCULAR"), document("n1", "血压", "CARDIOVASCULAR")),
+                Arrays.asList(null, new float[]{0, 0, 1}));
+
+        // 嵌入失败的文档不写入，同一主键的旧文档保持不变
+        assertThat(written).containsExactly("n1");
+        assertThat(store.getDocument("d1").getMetadata()).containsEntry("type", "DIABETES");
+        assertThat(store.getDocument("n1")).isNotNull();
+    }
+
+    @Test
+    void int8IndexKeepsVectorsOffHeapAndStillSearches() {
+        assertQuantizedIndexKeepsVectorsOffHeap(() -> new ScalarQuantizedIndex(4));
+    }
+
+    @Test
+    void pqIndexKeepsVectorsOffHeapAndStillSearches() {
+        assertQuantizedIndexKeepsVectorsOffHeap(() -> new ProductQuantizedIndex(64, 10, 4));
+    }
+
+    private static void assertQuantizedIndexKeepsVectorsOffHeap(Supplier<VectorIndex> indexFactory) {
+        VectorStoreProperties.Segments segments = new VectorStoreProperties.Segments();
+        segments.setCompactIntervalSeconds(0);
+        VectorStoreConfig.SimpleInMemoryVectorStore quantized = new VectorStoreConfig.SimpleInMemoryVectorStore(
+                new DocumentEmbedder(new FixedEmbeddingModel(), null), indexFactory,
+                new RecallTracker(0.0), null, segments);
+        try {
+            quantized.add(List.of(
+                    document("d1", "血糖", "DIABETES"),
+                    document("d2", "血糖偏高", "DIABETES"),
+                    document("l1", "肝功能", "LIVER")));
+            quantized.delete(List.of("d2"));
+            quantized.add(List.of(document("l2", "转氨酶", "LIVER")));
+
+            assertThat(quantized.getIndexStats())
+                    .containsEntry("vectorHeapBytes", 0L)
+                    .containsEntry("vectorMappedBytes", 4L * 3 * Float.BYTES);
+            assertThat(ids(quantized.similaritySearch(SearchRequest.builder().query("肝功能").topK(2).build())))
+                    .containsExactly("l1", "l2");
+        } finally {
+            quantized.shutdown();
+        }
+    }
+
+    private static Document document(String id, String text, String type) {
+        return new Document(text, Map.of("id", id, "type", type));
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(doc -> (String) doc.getMetadata().get("id")).toList();
+    }
+
+    private static final class FixedEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(VECTORS.get(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return VECTORS.get(document.getText());
+        }
+    }
+}
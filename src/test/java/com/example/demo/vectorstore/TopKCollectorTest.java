@@ -0,0 +1,87 @@
+package com.example.demo.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKCollectorTest {
+
+    @Test
+    void drainsHighestScoresInDescendingOrder() {
+        Random random = new Random(7);
+        float[] scores = new float[1000];
+        TopKCollector collector = new TopKCollector(10);
+        for (int id = 0; id < scores.length; id++) {
+            scores[id] = random.nextFloat() * 2 - 1;
+            collector.offer(id, scores[id]);
+        }
+
+        int[] ids = new int[10];
+        float[] top = new float[10];
+        assertThat(collector.drain(ids, top)).isEqualTo(10);
+
+        int[] expected = IntStream.range(0, scores.length).boxed()
+                .sorted((a, b) -> Float.compare(scores[b], scores[a]))
+                .limit(10).mapToInt(Integer::intValue).toArray();
+        assertThat(ids).containsExactly(expected);
+        for (int i = 1; i < top.length; i++) {
+            assertThat(top[i]).isLessThanOrEqualTo(top[i - 1]);
+        }
+        assertThat(collector.size()).isZero();
+    }
+
+    @Test
+    void returnsAllCandidatesWhenFewerThanK() {
+        TopKCollector collector = new TopKCollector(5);
+        collector.offer(1, 0.2f);
+        collector.offer(2, 0.9f);
+        collector.offer(3, 0.5f);
+
+        assertThat(collector.isFull()).isFalse();
+        assertThat(collector.drainIds()).containsExactly(2, 3, 1);
+    }
+
+    @Test
+    void minScoreIsKthBestOnceFull() {
+        TopKCollector collector = new TopKCollector(2, 0.1f);
+        assertThat(collector.minScore()).isEqualTo(0.1f);
+
+        collector.offer(1, 0.3f);
+        collector.offer(2, 0.7f);
+        assertThat(collector.minScore()).isEqualTo(0.3f);
+        // 不高于当前第K名的候选不会进入
+        assertThat(collector.offer(3, 0.3f)).isFalse();
+        assertThat(collector.offer(4, 0.5f)).isTrue();
+        assertThat(collector.minScore()).isEqualTo(0.5f);
+    }
+
+    @Test
+    void rejectsScoresBelowThreshold() {
+        TopKCollector collector = new TopKCollector(3, 0.5f);
+
+        assertThat(collector.offer(1, 0.49f)).isFalse();
+        assertThat(collector.offer(2, 0.5f)).isTrue();
+        assertThat(collector.drainIds()).containsExactly(2);
+    }
+
+    @Test
+    void mergeKeepsGlobalTopK() {
+        TopKCollector left = new TopKCollector(3);
+        TopKCollector right = new TopKCollector(3);
+        float[] scores = {0.1f, 0.8f, 0.4f, 0.95f, 0.3f, 0.6f};
+        for (int id = 0; id < scores.length; id++) {
+            (id % 2 == 0 ? left : right).offer(id, scores[id]);
+        }
+
+        left.merge(right);
+
+        int[] ids = left.drainIds();
+        assertThat(ids).containsExactly(3, 1, 5);
+        assertThat(Arrays.stream(ids).mapToDouble(id -> scores[id]).toArray()).isSortedAccordingTo(
+                (a, b) -> Double.compare(b, a));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VectorStorePersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void saveSwitchesToNewGenerationAndRemovesOldOne() throws Exception {
+        VectorStorePersistence persistence = new VectorStorePersistence(directory);
+
+        persistence.save(List.of(segment("a", "b")));
+        persistence.save(List.of(segment("a", "b", "c")));
+
+        assertThat(Files.readString(directory.resolve("CURRENT"))).isEqualTo("gen-2");
+        assertThat(directory.resolve("gen-1")).doesNotExist();
+        VectorStorePersistence.Snapshot snapshot = persistence.load();
+        assertThat(snapshot.documents()).extracting(Document::getText).containsExactly("a", "b", "c");
+        assertThat(snapshot.matrix().rows()).isEqualTo(3);
+    }
+
+    @Test
+    void loadRefusesFilesFromDifferentGenerations() throws Exception {
+        VectorStorePersistence persistence = new VectorStorePersistence(directory);
+        persistence.save(List.of(segment("a", "b")));
+        Path documents = directory.resolve("gen-1/documents.json");
+        byte[] older = Files.readAllBytes(documents);
+        persistence.save(List.of(segment("c", "d")));
+
+        // 模拟两个文件来自不同的保存：行数相同，但版本号不一致
+        Files.write(directory.resolve("gen-2/documents.json"), older);
+
+        assertThat(persistence.load()).isNull();
+    }
+
+    @Test
+    void interruptedSaveLeavesPreviousGenerationLoadable() throws Exception {
+        VectorStorePersistence persistence = new VectorStorePersistence(directory);
+        persistence.save(List.of(segment("a", "b")));
+
+        // 模拟保存到一半崩溃：新版本目录只写出了向量文件，CURRENT 尚未切换
+        Files.createDirectories(directory.resolve("gen-2"));
+        Files.copy(directory.resolve("gen-1/vectors.bin"), directory.resolve("gen-2/vectors.bin"));
+
+        assertThat(persistence.load().documents()).extracting(Document::getText).containsExactly("a", "b");
+        persistence.save(List.of(segment("c")));
+        assertThat(Files.readString(directory.resolve("CURRENT"))).isEqualTo("gen-3");
+        assertThat(persistence.load().documents()).extracting(Document::getText).containsExactly("c");
+    }
+
+    private static Segment segment(String... texts) {
+        FloatMatrix matrix = new FloatMatrix(2);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            matrix.add(new float[]{1, i});
+            documents.add(new Document(texts[i], Map.of("id", texts[i])));
+        }
+        return new Segment(documents, matrix, new FlatIndex());
+    }
+}